@@ -0,0 +1,242 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.joint.lang.Future;
+import fir.needle.joint.lang.NoWaitFuture;
+import fir.needle.joint.lang.VoidResult;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+
+/*
+ * Stands in for a real request so the handlers can be driven through an EmbeddedChannel: it answers as a GET that is
+ * either sent once or, after startPolling(), polled with no delay. The listener callbacks only count what they get.
+ */
+final class BenchmarkRequestHolder implements NettyRequestHolder, NettyResponseListener {
+    private static final String PATH = "/quotes";
+
+    private final NettyRequestTimings timings = new NettyRequestTimings();
+    private final ByteBuf template;
+
+    private boolean isPeriodic;
+    private long bodyBytes;
+    private int responses;
+
+    BenchmarkRequestHolder() {
+        final FullHttpRequest request = (FullHttpRequest) get();
+        try {
+            template = TemplateClientCodec.encodeHead(request);
+        } finally {
+            request.release();
+        }
+    }
+
+    // only once the channel is active, channelActive keeps writing for as long as there is a next request
+    void startPolling() {
+        isPeriodic = true;
+    }
+
+    long bodyBytes() {
+        return bodyBytes;
+    }
+
+    int responses() {
+        return responses;
+    }
+
+    void release() {
+        template.release();
+    }
+
+    @Override
+    public HttpRequest get() {
+        final FullHttpRequest result = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, PATH);
+        result.headers().set(HttpHeaderNames.HOST, "localhost");
+        return result;
+    }
+
+    @Override
+    public Object encoded() {
+        return new EncodedHttpRequest(HttpMethod.GET, template.retainedDuplicate());
+    }
+
+    @Override
+    public String relativeUrl() {
+        return PATH;
+    }
+
+    @Override
+    public String method() {
+        return HttpMethod.GET.name();
+    }
+
+    @Override
+    public String path() {
+        return PATH;
+    }
+
+    @Override
+    public String query() {
+        return null;
+    }
+
+    @Override
+    public NettyRequestTimings timings() {
+        return timings;
+    }
+
+    @Override
+    public NettyRequestTimings nextTimings() {
+        return timings;
+    }
+
+    @Override
+    public NettyResponseListener listener() {
+        return this;
+    }
+
+    @Override
+    public long currentRequestDelayMs() {
+        return 0;
+    }
+
+    @Override
+    public boolean hasNextRequest() {
+        return isPeriodic;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return false;
+    }
+
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return isPeriodic;
+    }
+
+    @Override
+    public Channel channel() {
+        return null;
+    }
+
+    @Override
+    public void connect(final Bootstrap bootstrap) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void attach(final Channel channel) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setCancelIsDone() {
+        //
+    }
+
+    @Override
+    public Future<VoidResult> cancel() {
+        return NoWaitFuture.INSTANCE;
+    }
+
+    @Override
+    public void onConnected() {
+        //
+    }
+
+    @Override
+    public void onBeforeRequestSend() {
+        //
+    }
+
+    @Override
+    public void onResponseStarted(final int code) {
+        responses++;
+    }
+
+    @Override
+    public boolean isHeaderOfInterest(final CharSequence name) {
+        return true;
+    }
+
+    @Override
+    public boolean isBodyDiscarded() {
+        return false;
+    }
+
+    @Override
+    public void onHeader(final CharSequence key, final CharSequence value) {
+        //
+    }
+
+    @Override
+    public void onBodyStarted() {
+        //
+    }
+
+    @Override
+    public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+        bodyBytes += length;
+    }
+
+    @Override
+    public void onBodyFinished() {
+        //
+    }
+
+    @Override
+    public void onResponseFinished() {
+        //
+    }
+
+    @Override
+    public void onListenerError(final Throwable error) {
+        //
+    }
+
+    @Override
+    public void onDisconnected() {
+        //
+    }
+
+    @Override
+    public void onDisconnectedByError(final AbstractHttpClientException exception) {
+        //
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+/*
+ * Decodes one response body per operation through the client's ResponseDecompressor. With a single thread the
+ * bodyBytes rate is how many plain bytes a core delivers per second, so 1 / bodyBytes is the CPU cost per byte,
+ * while savedBytes / bodyBytes is the share of the wire the encoding saves. Compare both against identity.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ContentEncodingBenchmark {
+    @Param({"identity", "gzip", "deflate"})
+    private String encoding;
+
+    @Param({"json", "random"})
+    private String payload;
+
+    @Param({"1024", "65536"})
+    private int size;
+
+    private ByteBuf wire;
+    private EmbeddedChannel channel;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+        public long bodyBytes;
+        public long wireBytes;
+        public long savedBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final byte[] body = "json".equals(payload) ? jsonBody(size) : randomBody(size);
+
+        wire = "identity".equals(encoding) ? Unpooled.wrappedBuffer(body) :
+                encode(body, "gzip".equals(encoding) ? ZlibWrapper.GZIP : ZlibWrapper.ZLIB);
+
+        channel = new EmbeddedChannel(new ResponseDecompressor(new ContentDecoderFactory[0]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        wire.release();
+    }
+
+    @Benchmark
+    public long decode(final Bytes bytes) {
+        final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, encoding);
+
+        channel.writeInbound(response, new DefaultLastHttpContent(wire.retainedDuplicate()));
+
+        long decoded = 0;
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            if (msg instanceof HttpContent) {
+                decoded += ((HttpContent) msg).content().readableBytes();
+            }
+            ReferenceCountUtil.release(msg);
+        }
+
+        bytes.bodyBytes += decoded;
+        bytes.wireBytes += wire.readableBytes();
+        bytes.savedBytes += decoded - wire.readableBytes();
+
+        return decoded;
+    }
+
+    private static byte[] jsonBody(final int size) {
+        final StringBuilder result = new StringBuilder(size + 64);
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        result.append('[');
+        while (result.length() < size) {
+            result.append("{\"symbol\":\"EURUSD\",\"bid\":").append(random.nextInt(100000, 200000))
+                    .append(",\"ask\":").append(random.nextInt(100000, 200000))
+                    .append(",\"time\":").append(System.nanoTime()).append("},");
+        }
+        result.setLength(size - 1);
+        result.append(']');
+
+        return result.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] randomBody(final int size) {
+        final byte[] result = new byte[size];
+        ThreadLocalRandom.current().nextBytes(result);
+        return result;
+    }
+
+    private static ByteBuf encode(final byte[] body, final ZlibWrapper wrapper) {
+        final EmbeddedChannel encoder = new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(wrapper));
+        encoder.writeOutbound(Unpooled.wrappedBuffer(body));
+        encoder.finish();
+
+        final ByteBuf result = Unpooled.buffer();
+        ByteBuf chunk;
+        while ((chunk = encoder.readOutbound()) != null) {
+            result.writeBytes(chunk);
+            chunk.release();
+        }
+
+        return result;
+    }
+}
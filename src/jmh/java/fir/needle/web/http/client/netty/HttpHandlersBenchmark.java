@@ -0,0 +1,137 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fir.needle.joint.logging.JulLogger;
+import fir.needle.joint.logging.Logger;
+import fir.needle.web.FlightRecorder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+
+/*
+ * One response per operation through HttpNotificationHandler and SendRequestHandler on an EmbeddedChannel, without a
+ * socket or a codec, so the numbers are the cost of the client's own dispatch. With polled=true every response also
+ * schedules and writes the next request, which is the SendRequestHandler path of a scheduled GET.
+ * Run with the gc profiler of the jmh task, gc.alloc.rate.norm is the allocation per response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HttpHandlersBenchmark {
+    @Param({"256", "16384"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean polled;
+
+    @Param({"false", "true"})
+    private boolean recorded;
+
+    private EventLoopGroup eventLoopGroup;
+    private NettyHttpClient client;
+    private BenchmarkRequestHolder requestHolder;
+    private EmbeddedChannel channel;
+    private HttpResponse response;
+    private ByteBuf body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Logger logger = new JulLogger(java.util.logging.Logger.getLogger(getClass().getSimpleName()));
+        final FlightRecorder recorder = recorded ? FlightRecorder.builder().build() : null;
+
+        eventLoopGroup = new NioEventLoopGroup(1);
+        client = NettyHttpClient.builder()
+                .withEventLoopGroup(eventLoopGroup)
+                .withLogger(logger)
+                .build("localhost", 80);
+
+        requestHolder = new BenchmarkRequestHolder();
+        channel = new EmbeddedChannel(
+                new HttpNotificationHandler(requestHolder, logger, "localhost", 80, null,
+                        client.new ConnectTask(requestHolder, null), null, recorder),
+                new SendRequestHandler(requestHolder, new PollScheduler(), recorder, logger));
+        channel.releaseOutbound();
+
+        if (polled) {
+            requestHolder.startPolling();
+        }
+
+        response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers()
+                .set(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                .set(HttpHeaderNames.ETAG, "\"5d8c72a5edda8d6a\"")
+                .set(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                .setInt(HttpHeaderNames.CONTENT_LENGTH, size);
+
+        final byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        body = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeBytes(bytes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        channel.finishAndReleaseAll();
+        body.release();
+        requestHolder.release();
+        client.close();
+        eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Benchmark
+    public long response() {
+        channel.writeInbound(response, new DefaultHttpContent(body.retainedDuplicate()),
+                LastHttpContent.EMPTY_LAST_CONTENT);
+
+        if (polled) {
+            channel.runScheduledPendingTasks();
+            channel.releaseOutbound();
+        }
+
+        return requestHolder.bodyBytes();
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InputByteBufferBenchmark {
+    @Param({"64", "1024", "16384"})
+    private int size;
+
+    private ByteBuf content;
+    private NettyInputByteBuffer input;
+    private byte[] dst;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final byte[] bytes = new byte[size];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        for (int i = 0; i < size; i++) {
+            if (bytes[i] == '\n') {
+                bytes[i] = ' ';
+            }
+        }
+        bytes[size - 1] = '\n';
+
+        content = PooledByteBufAllocator.DEFAULT.directBuffer(size);
+        content.writeBytes(bytes);
+        input = new NettyInputByteBuffer(content);
+        dst = new byte[size];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        content.release();
+    }
+
+    @Benchmark
+    public byte[] copyPerByte() {
+        for (int i = 0; i < size; i++) {
+            dst[i] = input.getByte(i);
+        }
+        return dst;
+    }
+
+    @Benchmark
+    public byte[] copyBulk() {
+        input.getBytes(0, dst, 0, size);
+        return dst;
+    }
+
+    @Benchmark
+    public long scanPerByte() {
+        for (int i = 0; i < size; i++) {
+            if (input.getByte(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public long scanIndexOf() {
+        return input.indexOf(0, size, (byte) '\n');
+    }
+
+    @Benchmark
+    public long sumLongsPerByte() {
+        long sum = 0;
+        for (int i = 0; i + Long.BYTES <= size; i += Long.BYTES) {
+            long value = 0;
+            for (int j = 0; j < Long.BYTES; j++) {
+                value = value << Byte.SIZE | input.getByte(i + j) & 0xFF;
+            }
+            sum += value;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sumLongs() {
+        long sum = 0;
+        for (int i = 0; i + Long.BYTES <= size; i += Long.BYTES) {
+            sum += input.getLong(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.websocket.client.netty;
+
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.joint.io.ByteToCharArea;
+import fir.needle.joint.io.CharArea;
+import fir.needle.joint.logging.JulLogger;
+import fir.needle.joint.logging.Logger;
+import fir.needle.web.FlightRecorder;
+import fir.needle.web.http.client.netty.NettyInputByteBuffer;
+import fir.needle.web.websocket.client.AbstractWebSocketClientException;
+import fir.needle.web.websocket.client.WebSocket;
+import fir.needle.web.websocket.client.WebSocketHandShaker;
+import fir.needle.web.websocket.client.WebSocketListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker13;
+import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+
+/*
+ * Frame dispatch of NotificationHandler and the send paths of NettyWebSocket on an EmbeddedChannel whose handshake is
+ * already complete. Nothing encodes the frames, so the send numbers are the cost of building them from a ByteArea or
+ * a CharArea. Run with the gc profiler of the jmh task, gc.alloc.rate.norm is the allocation per frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WebSocketBenchmark {
+    @Param({"64", "4096"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean recorded;
+
+    private EventLoopGroup eventLoopGroup;
+    private NettyWebSocketClient client;
+    private NettyWebSocket webSocket;
+    private EmbeddedChannel channel;
+    private CountingListener listener;
+
+    private ByteBuf payload;
+    private ByteArea byteMessage;
+    private CharArea charMessage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        final Logger logger = new JulLogger(java.util.logging.Logger.getLogger(getClass().getSimpleName()));
+        final FlightRecorder recorder = recorded ? FlightRecorder.builder().build() : null;
+
+        eventLoopGroup = new NioEventLoopGroup(1);
+        client = NettyWebSocketClient.builder()
+                .withEventLoopGroup(eventLoopGroup)
+                .withLogger(logger)
+                .build("localhost", 80);
+
+        listener = new CountingListener();
+        webSocket = new NettyWebSocket(client, "/quotes", null, listener, new DefaultHttpHeaders());
+
+        final URI uri = new URI(webSocket.url());
+        channel = new EmbeddedChannel(new NotificationHandler(webSocket,
+                new WebSocketClientHandshaker13(uri, WebSocketVersion.V13, null, true, new DefaultHttpHeaders(),
+                        Integer.MAX_VALUE) {
+                    @Override
+                    public boolean isHandshakeComplete() {
+                        return true;
+                    }
+                }, listener, null, recorder, logger));
+        channel.releaseOutbound();
+        webSocket.newConnection(channel);
+
+        final byte[] bytes = new byte[size];
+        for (int i = 0; i < size; i++) {
+            bytes[i] = (byte) ('a' + ThreadLocalRandom.current().nextInt(26));
+        }
+
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeBytes(bytes);
+        byteMessage = new NettyInputByteBuffer(payload);
+        charMessage = new ByteToCharArea(byteMessage);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        webSocket.close();
+        channel.finishAndReleaseAll();
+        payload.release();
+        client.close();
+        eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Benchmark
+    public long receiveText() {
+        channel.writeInbound(new TextWebSocketFrame(payload.retainedDuplicate()));
+        return listener.length;
+    }
+
+    @Benchmark
+    public long receiveBinary() {
+        channel.writeInbound(new BinaryWebSocketFrame(payload.retainedDuplicate()));
+        return listener.length;
+    }
+
+    @Benchmark
+    public boolean sendText() {
+        webSocket.sendText(charMessage, 0, size);
+        return channel.releaseOutbound();
+    }
+
+    @Benchmark
+    public boolean sendBinary() {
+        webSocket.sendBinary(byteMessage, 0, size);
+        return channel.releaseOutbound();
+    }
+
+    private static final class CountingListener implements WebSocketListener {
+        private long length;
+
+        @Override
+        public void onBeforeOpen(final WebSocketHandShaker handShaker) {
+            //
+        }
+
+        @Override
+        public void onOpened(final WebSocket webSocket) {
+            //
+        }
+
+        @Override
+        public void onPing(final ByteArea message, final long startIndex, final long length) {
+            //
+        }
+
+        @Override
+        public void onPong(final ByteArea message, final long startIndex, final long length) {
+            //
+        }
+
+        @Override
+        public void onBinaryFrame(final ByteArea message, final long startIndex, final long length,
+                final boolean isFinalFragment) {
+
+            this.length += message.getByte(startIndex + length - 1);
+        }
+
+        @Override
+        public void onTextFrame(final CharArea message, final long startIndex, final long length,
+                final boolean isFinalFragment) {
+
+            this.length += message.getChar(startIndex + length - 1);
+        }
+
+        @Override
+        public void onCloseFrame(final CharArea message, final long startIndex, final long length,
+                final int statusCode) {
+            //
+        }
+
+        @Override
+        public void onListenerError(final Throwable error) {
+            //
+        }
+
+        @Override
+        public void onClosed(final WebSocket webSocket) {
+            //
+        }
+
+        @Override
+        public void onClosedByError(final WebSocket webSocket, final AbstractWebSocketClientException error) {
+            //
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import fir.needle.joint.lang.Cancelable;
+import fir.needle.joint.lang.Future;
+import fir.needle.joint.lang.NoWaitFuture;
+import fir.needle.joint.lang.VoidResult;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+/*
+ * Watches the event loops that run the listener callbacks. A probe task scheduled on every executor measures how late
+ * it actually runs and how many tasks are waiting behind it, and the clients time every listener callback and report
+ * the ones over the threshold. A slow listener stalls every other connection of its loop, this is where it shows up.
+ */
+public final class EventLoopMonitor {
+    public static final String MAX_LAG_NANOS = "eventloop.lag.max.nanos";
+    public static final String PENDING_TASKS = "eventloop.tasks.pending";
+    public static final String SLOW_CALLBACKS = "listener.callbacks.slow";
+
+    private final long slowCallbackThresholdNanos;
+    private final long lagThresholdNanos;
+    private final EventLoopMonitorListener listener;
+
+    private final LongAdder slowCallbacks = new LongAdder();
+    private final List<ExecutorStats> executorStats = new ArrayList<>();
+
+    private EventLoopMonitor(final EventLoopMonitorBuilder builder) {
+        this.slowCallbackThresholdNanos = builder.slowCallbackThresholdNanos;
+        this.lagThresholdNanos = builder.lagThresholdNanos;
+        this.listener = builder.listener;
+    }
+
+    public static EventLoopMonitorBuilder builder() {
+        return new EventLoopMonitorBuilder();
+    }
+
+    public long slowCallbackThresholdNanos() {
+        return slowCallbackThresholdNanos;
+    }
+
+    public long slowCallbacks() {
+        return slowCallbacks.sum();
+    }
+
+    // one entry per monitored executor, the values are the ones of its latest probe
+    public List<ExecutorStats> executorStats() {
+        synchronized (executorStats) {
+            return Collections.unmodifiableList(new ArrayList<>(executorStats));
+        }
+    }
+
+    public long maxLagNanos() {
+        long result = 0;
+
+        for (final ExecutorStats crtStats : executorStats()) {
+            result = Math.max(result, crtStats.maxLagNanos);
+        }
+
+        return result;
+    }
+
+    public long pendingTasks() {
+        long result = 0;
+
+        for (final ExecutorStats crtStats : executorStats()) {
+            result += Math.max(0, crtStats.pendingTasks);
+        }
+
+        return result;
+    }
+
+    // called by the clients on the event loop right after a callback that took longer than the threshold
+    public void onSlowCallback(final String url, final String callback, final long durationNanos) {
+        slowCallbacks.increment();
+        listener.onSlowCallback(url, callback, durationNanos);
+    }
+
+    Cancelable start(final EventLoopGroup eventLoopGroup, final int probePeriodMs) {
+        final List<ExecutorProbe> probes = new ArrayList<>();
+
+        for (final EventExecutor crtExecutor : eventLoopGroup) {
+            final ExecutorStats crtStats = new ExecutorStats();
+
+            synchronized (executorStats) {
+                executorStats.add(crtStats);
+            }
+
+            probes.add(new ExecutorProbe(crtExecutor, crtStats, TimeUnit.MILLISECONDS.toNanos(probePeriodMs)));
+        }
+
+        for (final ExecutorProbe crtProbe : probes) {
+            crtProbe.schedule();
+        }
+
+        return new Cancelable() {
+            @Override
+            public Future<VoidResult> cancel() {
+                for (final ExecutorProbe crtProbe : probes) {
+                    crtProbe.isCanceled = true;
+                }
+
+                return NoWaitFuture.INSTANCE;
+            }
+        };
+    }
+
+    public static final class ExecutorStats {
+        private volatile String name;
+        private volatile long lagNanos;
+        private volatile long maxLagNanos;
+        private volatile int pendingTasks = -1;
+
+        private ExecutorStats() {
+        }
+
+        // the name of the event loop thread, null until the first probe has run
+        public String name() {
+            return name;
+        }
+
+        public long lagNanos() {
+            return lagNanos;
+        }
+
+        public long maxLagNanos() {
+            return maxLagNanos;
+        }
+
+        // -1 when the executor does not expose its queue
+        public int pendingTasks() {
+            return pendingTasks;
+        }
+    }
+
+    private final class ExecutorProbe implements Runnable {
+        private final EventExecutor executor;
+        private final ExecutorStats stats;
+        private final long periodNanos;
+
+        private long expectedNanos;
+        private volatile boolean isCanceled;
+
+        private ExecutorProbe(final EventExecutor executor, final ExecutorStats stats, final long periodNanos) {
+            this.executor = executor;
+            this.stats = stats;
+            this.periodNanos = periodNanos;
+        }
+
+        private void schedule() {
+            expectedNanos = System.nanoTime() + periodNanos;
+            executor.schedule(this, periodNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void run() {
+            if (isCanceled) {
+                return;
+            }
+
+            final long lagNanos = Math.max(0, System.nanoTime() - expectedNanos);
+            final int pendingTasks = executor instanceof SingleThreadEventExecutor ?
+                    ((SingleThreadEventExecutor) executor).pendingTasks() : -1;
+
+            if (stats.name == null) {
+                stats.name = Thread.currentThread().getName();
+            }
+
+            stats.lagNanos = lagNanos;
+            stats.pendingTasks = pendingTasks;
+            if (lagNanos > stats.maxLagNanos) {
+                stats.maxLagNanos = lagNanos;
+            }
+
+            // rescheduled before the listener is notified, so a failing listener does not stop the probe
+            schedule();
+
+            if (lagNanos > lagThresholdNanos) {
+                listener.onEventLoopLag(stats.name, lagNanos, pendingTasks);
+            }
+        }
+    }
+
+    public static final class EventLoopMonitorBuilder {
+        private long slowCallbackThresholdNanos = TimeUnit.MILLISECONDS.toNanos(10);
+        private long lagThresholdNanos = TimeUnit.MILLISECONDS.toNanos(50);
+        private EventLoopMonitorListener listener;
+
+        private EventLoopMonitorBuilder() {
+        }
+
+        public EventLoopMonitorBuilder withSlowCallbackThreshold(final long threshold, final TimeUnit unit) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+            }
+
+            this.slowCallbackThresholdNanos = unit.toNanos(threshold);
+            return this;
+        }
+
+        public EventLoopMonitorBuilder withLagThreshold(final long threshold, final TimeUnit unit) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+            }
+
+            this.lagThresholdNanos = unit.toNanos(threshold);
+            return this;
+        }
+
+        public EventLoopMonitorBuilder withListener(final EventLoopMonitorListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        public EventLoopMonitor build() {
+            if (listener == null) {
+                throw new IllegalStateException("Listener must be set");
+            }
+
+            return new EventLoopMonitor(this);
+        }
+    }
+}
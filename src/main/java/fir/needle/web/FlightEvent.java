@@ -0,0 +1,62 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+// the value recorded along with each event is given in the comment, 0 when there is none
+public enum FlightEvent {
+    CHANNEL_REGISTERED,
+    CHANNEL_ACTIVE,
+    CHANNEL_INACTIVE,
+    CHANNEL_UNREGISTERED,
+    // hash of the exception class name
+    EXCEPTION,
+
+    // number of requests written in one flush
+    REQUEST_SENT,
+    // delay of the next request in ms
+    REQUEST_SCHEDULED,
+    REQUEST_CANCELED,
+    // status code
+    RESPONSE_STARTED,
+    // readable bytes of the part
+    RESPONSE_CONTENT,
+    RESPONSE_FINISHED,
+
+    WS_HANDSHAKE_FINISHED,
+    WS_HANDSHAKE_FAILED,
+    // readable bytes of the frame for the frames below
+    WS_TEXT_FRAME,
+    WS_BINARY_FRAME,
+    WS_CONTINUATION_FRAME,
+    WS_PING,
+    WS_PONG,
+    // status code
+    WS_CLOSE_FRAME;
+
+    private static final FlightEvent[] VALUES = values();
+
+    static FlightEvent of(final int ordinal) {
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.netty.channel.Channel;
+
+/*
+ * Keeps the latest events of the handlers in a preallocated ring of fixed size records, so it can stay on in
+ * production where trace logging can not: a record is four longs and writing one neither allocates nor formats.
+ *
+ * Every record starts with its sequence number plus one, written before and after the payload. A dump skips the records
+ * overwritten while it was reading them, so it may come out shorter than the capacity under a heavy load.
+ */
+public final class FlightRecorder {
+    private static final int RECORD_LONGS = 4;
+    private static final int SEQUENCE = 0;
+    private static final int NANO_TIME = 1;
+    private static final int EVENT_AND_CHANNEL = 2;
+    private static final int VALUE = 3;
+    private static final long CHANNEL_MASK = 0xFFFFFFFFL;
+    private static final int EVENT_SHIFT = 32;
+
+    private final AtomicLongArray records;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final int mask;
+    private final FlightRecordConsumer errorConsumer;
+
+    private FlightRecorder(final FlightRecorderBuilder builder) {
+        this.records = new AtomicLongArray(builder.capacity * RECORD_LONGS);
+        this.mask = builder.capacity - 1;
+        this.errorConsumer = builder.errorConsumer;
+    }
+
+    public static FlightRecorderBuilder builder() {
+        return new FlightRecorderBuilder();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public void record(final FlightEvent event, final Channel channel) {
+        record(event, channel, 0);
+    }
+
+    public void record(final FlightEvent event, final Channel channel, final long value) {
+        final long sequence = nextSequence.getAndIncrement();
+        final int offset = (int) (sequence & mask) * RECORD_LONGS;
+
+        // lazySet keeps the stores in order without a full fence, the marker is cleared first and set back last
+        records.lazySet(offset + SEQUENCE, 0);
+        records.lazySet(offset + NANO_TIME, System.nanoTime());
+        records.lazySet(offset + EVENT_AND_CHANNEL,
+                ((long) event.ordinal() << EVENT_SHIFT) | (channel.id().hashCode() & CHANNEL_MASK));
+        records.lazySet(offset + VALUE, value);
+        records.lazySet(offset + SEQUENCE, sequence + 1);
+    }
+
+    // records the exception and dumps the recorder to the error consumer of the builder, if there is one
+    public void recordError(final Channel channel, final Throwable error) {
+        record(FlightEvent.EXCEPTION, channel, error.getClass().getName().hashCode());
+
+        if (errorConsumer != null) {
+            dump(errorConsumer);
+        }
+    }
+
+    public void dump(final FlightRecordConsumer consumer) {
+        final long lastSequence = nextSequence.get();
+        final long firstSequence = Math.max(0, lastSequence - capacity());
+
+        for (long sequence = firstSequence; sequence < lastSequence; sequence++) {
+            final int offset = (int) (sequence & mask) * RECORD_LONGS;
+
+            if (records.get(offset + SEQUENCE) != sequence + 1) {
+                continue;
+            }
+
+            final long nanoTime = records.get(offset + NANO_TIME);
+            final long eventAndChannel = records.get(offset + EVENT_AND_CHANNEL);
+            final long value = records.get(offset + VALUE);
+
+            if (records.get(offset + SEQUENCE) != sequence + 1) {
+                continue;
+            }
+
+            consumer.onRecord(nanoTime, FlightEvent.of((int) (eventAndChannel >>> EVENT_SHIFT)),
+                    (int) eventAndChannel, value);
+        }
+
+        consumer.onDumpFinished();
+    }
+
+    // one line per record, meant for post-mortem reading rather than for the hot path
+    public String dump() {
+        final StringBuilder result = new StringBuilder();
+
+        dump((nanoTime, event, channelId, value) -> result.append(nanoTime).append(' ')
+                .append(String.format("%08x", channelId)).append(' ')
+                .append(event).append(' ')
+                .append(value).append('\n'));
+
+        return result.toString();
+    }
+
+    public static final class FlightRecorderBuilder {
+        private int capacity = 4096;
+        private FlightRecordConsumer errorConsumer;
+
+        private FlightRecorderBuilder() {
+        }
+
+        // number of records kept, rounded up to a power of two
+        public FlightRecorderBuilder withCapacity(final int capacity) {
+            if (capacity <= 0 || capacity > 1 << 28) {
+                throw new IllegalArgumentException("Capacity must be in range [1, 2^28]: " + capacity);
+            }
+
+            this.capacity = Integer.highestOneBit(capacity) == capacity ?
+                    capacity : Integer.highestOneBit(capacity) << 1;
+            return this;
+        }
+
+        // called on the event loop of the failed channel
+        public FlightRecorderBuilder withErrorDump(final FlightRecordConsumer errorConsumer) {
+            this.errorConsumer = errorConsumer;
+            return this;
+        }
+
+        public FlightRecorder build() {
+            return new FlightRecorder(this);
+        }
+    }
+}
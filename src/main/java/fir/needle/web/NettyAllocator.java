@@ -0,0 +1,126 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocatorMetric;
+
+/*
+ * One pooled allocator meant to be shared by every client of a NettyWebClient, so they all draw from the same arenas
+ * and thread caches instead of each growing its own.
+ */
+public final class NettyAllocator {
+    public static final NettyAllocator DEFAULT = new NettyAllocator(PooledByteBufAllocator.DEFAULT);
+
+    private final PooledByteBufAllocator allocator;
+
+    private NettyAllocator(final PooledByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
+
+    public static NettyAllocatorBuilder builder() {
+        return new NettyAllocatorBuilder();
+    }
+
+    public ByteBufAllocator allocator() {
+        return allocator;
+    }
+
+    // used heap and direct memory, arenas with their chunk lists and thread cache sizes
+    public PooledByteBufAllocatorMetric metric() {
+        return allocator.metric();
+    }
+
+    public long usedDirectMemory() {
+        return allocator.metric().usedDirectMemory();
+    }
+
+    public long usedHeapMemory() {
+        return allocator.metric().usedHeapMemory();
+    }
+
+    public String dumpStats() {
+        return allocator.dumpStats();
+    }
+
+    public static final class NettyAllocatorBuilder {
+        private boolean isDirectPreferred = PooledByteBufAllocator.defaultPreferDirect();
+        private int numberOfHeapArenas = PooledByteBufAllocator.defaultNumHeapArena();
+        private int numberOfDirectArenas = PooledByteBufAllocator.defaultNumDirectArena();
+        private int pageSize = PooledByteBufAllocator.defaultPageSize();
+        private int maxOrder = PooledByteBufAllocator.defaultMaxOrder();
+
+        private NettyAllocatorBuilder() {
+        }
+
+        public NettyAllocatorBuilder withDirectBuffers() {
+            isDirectPreferred = true;
+            return this;
+        }
+
+        public NettyAllocatorBuilder withHeapBuffers() {
+            isDirectPreferred = false;
+            return this;
+        }
+
+        public NettyAllocatorBuilder withArenas(final int numberOfArenas) {
+            return withHeapArenas(numberOfArenas).withDirectArenas(numberOfArenas);
+        }
+
+        public NettyAllocatorBuilder withHeapArenas(final int numberOfHeapArenas) {
+            if (numberOfHeapArenas < 0) {
+                throw new IllegalArgumentException("Number of arenas must not be negative: " + numberOfHeapArenas);
+            }
+
+            this.numberOfHeapArenas = numberOfHeapArenas;
+            return this;
+        }
+
+        public NettyAllocatorBuilder withDirectArenas(final int numberOfDirectArenas) {
+            if (numberOfDirectArenas < 0) {
+                throw new IllegalArgumentException("Number of arenas must not be negative: " + numberOfDirectArenas);
+            }
+
+            this.numberOfDirectArenas = numberOfDirectArenas;
+            return this;
+        }
+
+        // a power of two of at least 4096, a chunk is pageSize << maxOrder
+        public NettyAllocatorBuilder withPageSize(final int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        public NettyAllocatorBuilder withMaxOrder(final int maxOrder) {
+            this.maxOrder = maxOrder;
+            return this;
+        }
+
+        public NettyAllocator build() {
+            return new NettyAllocator(new PooledByteBufAllocator(isDirectPreferred, numberOfHeapArenas,
+                    numberOfDirectArenas, pageSize, maxOrder));
+        }
+    }
+}
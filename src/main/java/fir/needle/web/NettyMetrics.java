@@ -0,0 +1,157 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import io.netty.channel.ChannelHandler;
+
+/*
+ * Lock free counters and gauges shared by every client that reports into it. Updates come from the event loops and
+ * only touch LongAdder cells, reads sum them up so a snapshot is not atomic across metrics.
+ */
+public final class NettyMetrics {
+    public static final String CONNECTIONS_OPENED = "connections.opened";
+    public static final String CHANNELS_ACTIVE = "channels.active";
+    public static final String BYTES_READ = "bytes.read";
+    public static final String BYTES_WRITTEN = "bytes.written";
+    public static final String HTTP_RECONNECTS = "http.reconnects";
+    public static final String WEBSOCKET_RECONNECTS = "websocket.reconnects";
+    public static final String LISTENER_ERRORS = "listener.errors";
+    public static final String SCHEDULED_TASKS = "tasks.scheduled";
+
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder channelsActive = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder httpReconnects = new LongAdder();
+    private final LongAdder webSocketReconnects = new LongAdder();
+    private final LongAdder listenerErrors = new LongAdder();
+    private final LongAdder scheduledTasks = new LongAdder();
+
+    private final CopyOnWriteArrayList<Map.Entry<String, LongSupplier>> gauges = new CopyOnWriteArrayList<>();
+    private final ChannelHandler handler = new MetricsHandler(this);
+
+    public long connectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    public long channelsActive() {
+        return channelsActive.sum();
+    }
+
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    public long httpReconnects() {
+        return httpReconnects.sum();
+    }
+
+    public long webSocketReconnects() {
+        return webSocketReconnects.sum();
+    }
+
+    public long listenerErrors() {
+        return listenerErrors.sum();
+    }
+
+    public long scheduledTasks() {
+        return scheduledTasks.sum();
+    }
+
+    // sampled on every export, e.g. the memory used by the allocator
+    public NettyMetrics registerGauge(final String name, final LongSupplier gauge) {
+        gauges.add(new AbstractMap.SimpleImmutableEntry<>(name, gauge));
+        return this;
+    }
+
+    public void export(final MetricsExporter exporter) {
+        exporter.exportCounter(CONNECTIONS_OPENED, connectionsOpened());
+        exporter.exportCounter(BYTES_READ, bytesRead());
+        exporter.exportCounter(BYTES_WRITTEN, bytesWritten());
+        exporter.exportCounter(HTTP_RECONNECTS, httpReconnects());
+        exporter.exportCounter(WEBSOCKET_RECONNECTS, webSocketReconnects());
+        exporter.exportCounter(LISTENER_ERRORS, listenerErrors());
+
+        exporter.exportGauge(CHANNELS_ACTIVE, channelsActive());
+        exporter.exportGauge(SCHEDULED_TASKS, scheduledTasks());
+
+        for (final Map.Entry<String, LongSupplier> crtGauge : gauges) {
+            exporter.exportGauge(crtGauge.getKey(), crtGauge.getValue().getAsLong());
+        }
+
+        exporter.onExportFinished();
+    }
+
+    // to be added first to the pipeline of every channel that reports into this registry
+    public ChannelHandler channelHandler() {
+        return handler;
+    }
+
+    public void onHttpReconnect() {
+        httpReconnects.increment();
+    }
+
+    public void onWebSocketReconnect() {
+        webSocketReconnects.increment();
+    }
+
+    public void onListenerError() {
+        listenerErrors.increment();
+    }
+
+    public void onTaskScheduled() {
+        scheduledTasks.increment();
+    }
+
+    public void onTaskUnscheduled() {
+        scheduledTasks.decrement();
+    }
+
+    void onChannelActive() {
+        connectionsOpened.increment();
+        channelsActive.increment();
+    }
+
+    void onChannelInactive() {
+        channelsActive.decrement();
+    }
+
+    void onBytesRead(final long length) {
+        bytesRead.add(length);
+    }
+
+    void onBytesWritten(final long length) {
+        bytesWritten.add(length);
+    }
+}
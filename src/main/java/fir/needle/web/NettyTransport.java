@@ -0,0 +1,96 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+public enum NettyTransport {
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup(final int numberOfThreads) {
+            return new NioEventLoopGroup(numberOfThreads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> domainSocketChannelClass() {
+            throw new IllegalStateException("Unix domain sockets are supported by the epoll transport only");
+        }
+    },
+
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup(final int numberOfThreads) {
+            return new EpollEventLoopGroup(numberOfThreads);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends Channel> domainSocketChannelClass() {
+            return EpollDomainSocketChannel.class;
+        }
+    };
+
+    public abstract EventLoopGroup newEventLoopGroup(int numberOfThreads);
+
+    public abstract Class<? extends SocketChannel> socketChannelClass();
+
+    public abstract Class<? extends Channel> domainSocketChannelClass();
+
+    public static NettyTransport nativeOrNio() {
+        return Epoll.isAvailable() ? EPOLL : NIO;
+    }
+
+    public static NettyTransport forDomainSocket() {
+        if (!Epoll.isAvailable()) {
+            throw new IllegalStateException("Unix domain sockets require the epoll transport",
+                    Epoll.unavailabilityCause());
+        }
+
+        return EPOLL;
+    }
+
+    public static NettyTransport of(final EventLoopGroup eventLoopGroup) {
+        // the channel class has to match the event loops it is registered with, a single loop is recognized by the
+        // group it was taken from since EpollEventLoop itself isn't public
+        return eventLoopGroup instanceof EpollEventLoopGroup ||
+                eventLoopGroup.next().parent() instanceof EpollEventLoopGroup ? EPOLL : NIO;
+    }
+}
@@ -34,25 +34,99 @@ import fir.needle.joint.lang.VoidResult;
 import fir.needle.web.http.client.netty.NettyHttpClient;
 import fir.needle.web.websocket.client.netty.NettyWebSocketClient;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
 
 public class NettyWebClient implements AutoCloseable {
     private static final int DEFAULT_NUMBER_OF_WORKER_THREADS = 1;
 
     private final Object lock = new Object();
     private final EventLoopGroup eventLoopGroup;
+    private final NettyAllocator allocator;
+    private final NettyMetrics metrics;
+    private final FlightRecorder flightRecorder;
 
     private volatile boolean isClosed;
+    private EventLoopMonitor eventLoopMonitor;
 
     private final List<Cancelable> scheduledTasks = new ArrayList<>();
     private final List<AutoCloseable> openedClients = new ArrayList<>();
 
     public NettyWebClient() {
-        eventLoopGroup = new NioEventLoopGroup(DEFAULT_NUMBER_OF_WORKER_THREADS);
+        this(DEFAULT_NUMBER_OF_WORKER_THREADS);
     }
 
     public NettyWebClient(final int numberOfWorkerThreads) {
-        eventLoopGroup = new NioEventLoopGroup(numberOfWorkerThreads);
+        this(numberOfWorkerThreads, NettyTransport.NIO);
+    }
+
+    public NettyWebClient(final int numberOfWorkerThreads, final NettyTransport transport) {
+        this(numberOfWorkerThreads, transport, NettyAllocator.DEFAULT);
+    }
+
+    public NettyWebClient(final int numberOfWorkerThreads, final NettyTransport transport,
+            final NettyAllocator allocator) {
+
+        this(numberOfWorkerThreads, transport, allocator, new NettyMetrics());
+    }
+
+    public NettyWebClient(final int numberOfWorkerThreads, final NettyTransport transport,
+            final NettyAllocator allocator, final NettyMetrics metrics) {
+
+        this(numberOfWorkerThreads, transport, allocator, metrics, FlightRecorder.builder().build());
+    }
+
+    public NettyWebClient(final int numberOfWorkerThreads, final NettyTransport transport,
+            final NettyAllocator allocator, final NettyMetrics metrics, final FlightRecorder flightRecorder) {
+
+        this.eventLoopGroup = transport.newEventLoopGroup(numberOfWorkerThreads);
+        this.allocator = allocator;
+        this.metrics = metrics;
+        this.flightRecorder = flightRecorder;
+
+        metrics.registerGauge("allocator.direct.used", allocator::usedDirectMemory)
+                .registerGauge("allocator.heap.used", allocator::usedHeapMemory);
+    }
+
+    public NettyAllocator allocator() {
+        return allocator;
+    }
+
+    // every client built by this NettyWebClient reports into it
+    public NettyMetrics metrics() {
+        return metrics;
+    }
+
+    // shared by every client built by this NettyWebClient, dump it after a failure to see what led to it
+    public FlightRecorder flightRecorder() {
+        return flightRecorder;
+    }
+
+    public Cancelable exportMetrics(final MetricsExporter exporter, final int periodMs) {
+        return schedule(() -> metrics.export(exporter), periodMs);
+    }
+
+    // clients built after this call also time their listener callbacks against the threshold of the monitor
+    public Cancelable monitorEventLoops(final EventLoopMonitor monitor, final int probePeriodMs) {
+        final Cancelable result;
+
+        synchronized (lock) {
+            if (isClosed) {
+                throw new IllegalStateException("Is closed");
+            }
+
+            if (eventLoopMonitor != null) {
+                throw new IllegalStateException("Event loops are already monitored");
+            }
+
+            eventLoopMonitor = monitor;
+            result = monitor.start(eventLoopGroup, probePeriodMs);
+            scheduledTasks.add(result);
+        }
+
+        metrics.registerGauge(EventLoopMonitor.MAX_LAG_NANOS, monitor::maxLagNanos)
+                .registerGauge(EventLoopMonitor.PENDING_TASKS, monitor::pendingTasks)
+                .registerGauge(EventLoopMonitor.SLOW_CALLBACKS, monitor::slowCallbacks);
+
+        return result;
     }
 
     public void execute(final Runnable task) {
@@ -77,6 +151,8 @@ public class NettyWebClient implements AutoCloseable {
             scheduledTasks.add(result);
         }
 
+        metrics.onTaskScheduled();
+
         return result;
     }
 
@@ -86,7 +162,12 @@ public class NettyWebClient implements AutoCloseable {
                 throw new IllegalStateException("Is closed");
             }
 
-            return new HttpClientBuilder().withEventLoopGroup(eventLoopGroup);
+            return new HttpClientBuilder()
+                    .withEventLoopGroup(eventLoopGroup)
+                    .withAllocator(allocator.allocator())
+                    .withMetrics(metrics)
+                    .withEventLoopMonitor(eventLoopMonitor)
+                    .withFlightRecorder(flightRecorder);
         }
     }
 
@@ -95,7 +176,12 @@ public class NettyWebClient implements AutoCloseable {
             if (isClosed) {
                 throw new IllegalStateException("Is closed");
             }
-            return new WebSocketClientBuilder().withEventLoopGroup(eventLoopGroup);
+            return new WebSocketClientBuilder()
+                    .withEventLoopGroup(eventLoopGroup)
+                    .withAllocator(allocator.allocator())
+                    .withMetrics(metrics)
+                    .withEventLoopMonitor(eventLoopMonitor)
+                    .withFlightRecorder(flightRecorder);
         }
     }
 
@@ -171,6 +257,16 @@ public class NettyWebClient implements AutoCloseable {
 
         @Override
         public Future<VoidResult> cancel() {
+            final boolean wasScheduled;
+
+            synchronized (lock) {
+                wasScheduled = scheduledTasks.remove(this);
+            }
+
+            if (wasScheduled) {
+                metrics.onTaskUnscheduled();
+            }
+
             isCanceled = true;
 
             return NoWaitFuture.INSTANCE;
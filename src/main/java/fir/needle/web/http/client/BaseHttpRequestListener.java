@@ -44,6 +44,11 @@ public class BaseHttpRequestListener<R extends HttpRequest> implements HttpRespo
         //
     }
 
+    @Override
+    public void onNotModified(final R request) {
+        //
+    }
+
     @Override
     public void onListenerError(final Throwable error) {
         //
@@ -0,0 +1,50 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client;
+
+import java.io.IOException;
+
+import fir.needle.joint.io.ByteAppendable;
+
+public interface BodyProducer {
+    long UNKNOWN_LENGTH = -1;
+    int END_OF_BODY = -1;
+    int NO_DATA_YET = 0;
+
+    /*
+     * Called on the event loop whenever the connection can take more data: appends at most maxLength bytes of the
+     * body to the chunk and returns how many were appended, or END_OF_BODY once the whole body has been produced.
+     * NO_DATA_YET pauses the transfer until the producer runs the resume callback given to onStart.
+     */
+    int produce(ByteAppendable chunk, int maxLength) throws IOException;
+
+    // called on the event loop before the first produce, resume may be run from any thread
+    default void onStart(final Runnable resume) {
+        //
+    }
+
+    default void close() {
+        //
+    }
+}
@@ -28,4 +28,6 @@ import fir.needle.joint.io.ByteAppendable;
 public interface BodyRequestBuilder<R extends NoBodyRequestBuilder> extends NoBodyRequestBuilder<R> {
 
     ByteAppendable withBody(CharSequence contentType, int contentLength);
+
+    ByteAppendable withBody(CharSequence contentType);
 }
@@ -30,4 +30,6 @@ public interface HttpRequest {
     String path();
 
     String query();
+
+    RequestTimings timings();
 }
\ No newline at end of file
@@ -44,6 +44,11 @@ public interface HttpResponseListener<R extends HttpRequest> {
 
     void onResponseFinished();
 
+    // replaces the whole response cycle when a conditional poll is answered with 304
+    default void onNotModified(final R request) {
+        //
+    }
+
     void onListenerError(Throwable error);
 
     void onDisconnected(R request);
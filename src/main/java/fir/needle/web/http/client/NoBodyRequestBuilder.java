@@ -32,4 +32,10 @@ public interface NoBodyRequestBuilder<R extends NoBodyRequestBuilder> {
     R withQuery(String query);
 
     R withHeader(CharSequence name, CharSequence value);
+
+    R withHeaderInterest(CharSequence... names);
+
+    R withAcceptEncoding(CharSequence... encodings);
+
+    R withDiscardedBody();
 }
@@ -29,6 +29,10 @@ public interface PreparableRequestsFactory {
 
     PreparedGet prepareGet(String path, String query);
 
+    PreparedHead prepareHead(String path);
+
+    PreparedHead prepareHead(String path, String query);
+
     PreparedPost preparePost(String path);
 
     PreparedPost preparePost(String path, String query);
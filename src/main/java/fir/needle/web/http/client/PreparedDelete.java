@@ -32,5 +32,8 @@ public interface PreparedDelete extends BodyRequestBuilder<PreparedDelete> {
 
     Cancelable schedule(int repeatPeriodMs, HttpResponseListener<ScheduledDelete> listener);
 
+    Cancelable scheduleAtFixedRate(int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledDelete> listener);
+
     PreparableRequestsFactory addToChain(HttpResponseListener<Delete> listener);
 }
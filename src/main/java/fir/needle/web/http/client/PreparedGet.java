@@ -28,9 +28,14 @@ import fir.needle.joint.lang.Cancelable;
 
 public interface PreparedGet extends NoBodyRequestBuilder<PreparedGet> {
 
+    PreparedGet withConditionalPolling();
+
     void send(HttpResponseListener<Get> listener);
 
     Cancelable schedule(int repeatPeriodMs, HttpResponseListener<ScheduledGet> listener);
 
+    Cancelable scheduleAtFixedRate(int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledGet> listener);
+
     PreparableRequestsFactory addToChain(HttpResponseListener<Get> listener);
 }
\ No newline at end of file
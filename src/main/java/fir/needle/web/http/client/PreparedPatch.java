@@ -26,11 +26,14 @@ package fir.needle.web.http.client;
 
 import fir.needle.joint.lang.Cancelable;
 
-public interface PreparedPatch extends BodyRequestBuilder<PreparedPatch> {
+public interface PreparedPatch extends StreamingBodyRequestBuilder<PreparedPatch> {
 
     void send(HttpResponseListener<Patch> listener);
 
     Cancelable schedule(int repeatPeriodMs, HttpResponseListener<ScheduledPatch> listener);
 
+    Cancelable scheduleAtFixedRate(int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledPatch> listener);
+
     PreparableRequestsFactory addToChain(HttpResponseListener<Patch> listener);
 }
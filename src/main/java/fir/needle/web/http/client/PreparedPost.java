@@ -26,11 +26,14 @@ package fir.needle.web.http.client;
 
 import fir.needle.joint.lang.Cancelable;
 
-public interface PreparedPost extends BodyRequestBuilder<PreparedPost> {
+public interface PreparedPost extends StreamingBodyRequestBuilder<PreparedPost> {
 
     void send(HttpResponseListener<Post> listener);
 
     Cancelable schedule(int repeatPeriodMs, HttpResponseListener<ScheduledPost> listener);
 
+    Cancelable scheduleAtFixedRate(int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledPost> listener);
+
     PreparableRequestsFactory addToChain(HttpResponseListener<Post> listener);
 }
@@ -26,11 +26,14 @@ package fir.needle.web.http.client;
 
 import fir.needle.joint.lang.Cancelable;
 
-public interface PreparedPut extends BodyRequestBuilder<PreparedPut> {
+public interface PreparedPut extends StreamingBodyRequestBuilder<PreparedPut> {
 
     void send(HttpResponseListener<Put> listener);
 
     Cancelable schedule(int repeatPeriodMs, HttpResponseListener<ScheduledPut> listener);
 
+    Cancelable scheduleAtFixedRate(int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledPut> listener);
+
     PreparableRequestsFactory addToChain(HttpResponseListener<Put> listener);
 }
@@ -35,4 +35,10 @@ public interface RequestSender extends PreparableRequestsFactory {
     Cancelable scheduleGet(String path, int repeatPeriodMs, HttpResponseListener<ScheduledGet> listener);
 
     Cancelable scheduleGet(String path, String query, int repeatPeriodMs, HttpResponseListener<ScheduledGet> listener);
+
+    Cancelable scheduleGetAtFixedRate(String path, int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledGet> listener);
+
+    Cancelable scheduleGetAtFixedRate(String path, String query, int periodMs, OverrunPolicy overrunPolicy,
+            HttpResponseListener<ScheduledGet> listener);
 }
\ No newline at end of file
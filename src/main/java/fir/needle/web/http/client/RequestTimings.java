@@ -0,0 +1,60 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client;
+
+/*
+ * System.nanoTime() marks of the latest send of a request, NOT_RECORDED for the phases it did not go through: a request
+ * sent over a kept-alive connection has no connect or TLS phase, a plain text connection has no TLS phase.
+ */
+public interface RequestTimings {
+    long NOT_RECORDED = Long.MIN_VALUE;
+
+    // connect started, so DNS resolution and pool acquire are included; the write started on a kept-alive connection
+    long startedNanos();
+
+    long connectedNanos();
+
+    long tlsHandshakeNanos();
+
+    long requestWrittenNanos();
+
+    long responseStartedNanos();
+
+    long responseFinishedNanos();
+
+    // taken from the pool or kept alive after the previous response instead of being opened for this request
+    boolean isConnectionReused();
+
+    default long timeToFirstByteNanos() {
+        return between(requestWrittenNanos(), responseStartedNanos());
+    }
+
+    default long totalNanos() {
+        return between(startedNanos(), responseFinishedNanos());
+    }
+
+    static long between(final long fromNanos, final long toNanos) {
+        return fromNanos == NOT_RECORDED || toNanos == NOT_RECORDED ? NOT_RECORDED : toNanos - fromNanos;
+    }
+}
@@ -30,4 +30,8 @@ public interface ScheduledRequest<R extends ScheduledRequest> extends HttpReques
         Cancelable {
 
     RequestSender client();
+
+    long tickLatenessMs();
+
+    long skippedTicks();
 }
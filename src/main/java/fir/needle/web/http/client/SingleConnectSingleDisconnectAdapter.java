@@ -68,6 +68,11 @@ public class SingleConnectSingleDisconnectAdapter<R extends HttpRequest> extends
         //
     }
 
+    @Override
+    public void onNotModified(final R request) {
+        //
+    }
+
     @Override
     public void onListenerError(final Throwable error) {
         //
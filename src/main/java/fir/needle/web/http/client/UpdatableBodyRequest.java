@@ -28,4 +28,6 @@ import fir.needle.joint.io.ByteAppendable;
 public interface UpdatableBodyRequest <R extends UpdatableNoBodyRequest> extends UpdatableNoBodyRequest<R> {
 
     ByteAppendable updateBody(CharSequence contentType, int contentLength);
+
+    ByteAppendable updateBody(CharSequence contentType);
 }
@@ -23,14 +23,24 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.io.ByteArea;
 import fir.needle.web.http.client.*;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.AsciiString;
 
 abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> implements HttpRequest,
         UpdatableBodyRequest<R>, NettyHttpRequest, NettyResponseListener {
@@ -43,7 +53,13 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
     String relativeUrl;
 
     HttpHeaders headers;
+    AsciiString[] headerInterest;
+    boolean isBodyDiscarded;
     NettyOutputByteBuffer body;
+    BodyProducer bodyProducer;
+    Path bodyFile;
+    long bodyLength;
+    boolean isGrowableBody;
 
     HttpResponseListener<R> listener;
 
@@ -52,6 +68,11 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
 
     long scheduledId;
 
+    final NettyRequestTimings timings = new NettyRequestTimings();
+
+    private ByteBuf template;
+    private boolean isProducerStarted;
+
     AbstractRequest(final RequestBuilder builder) {
         this.httpVersion = builder.httpVersion;
         this.httpMethod = builder.httpMethod;
@@ -59,10 +80,17 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
         this.path = builder.path;
         this.query = builder.query;
         this.headers = builder.headers;
+        this.headerInterest = builder.headerInterest;
+        this.isBodyDiscarded = builder.isBodyDiscarded;
         this.listener = builder.listener;
         this.client = builder.client;
         this.scheduledId = builder.scheduledId;
         this.chain = builder.chain;
+        this.body = builder.takeBody();
+        this.bodyProducer = builder.bodyProducer;
+        this.bodyFile = builder.bodyFile;
+        this.bodyLength = builder.bodyLength;
+        this.isGrowableBody = builder.isGrowableBody;
         updateRelativeUrl();
     }
 
@@ -78,10 +106,28 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
 
     @Override
     public ByteAppendable updateBody(final CharSequence contentType, final int contentLength) {
-        this.headers.add(HttpHeaderNames.CONTENT_TYPE, contentType);
-        this.headers.add(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        this.headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        this.headers.setInt(HttpHeaderNames.CONTENT_LENGTH, contentLength);
 
-        body = new NettyOutputByteBuffer(Unpooled.buffer(contentLength));
+        releaseBody();
+        bodyFile = null;
+        isGrowableBody = false;
+        body = new NettyOutputByteBuffer(client.newBodyBuffer(contentLength));
+        invalidateTemplate();
+
+        return body;
+    }
+
+    @Override
+    public ByteAppendable updateBody(final CharSequence contentType) {
+        this.headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        this.headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+
+        releaseBody();
+        bodyFile = null;
+        isGrowableBody = true;
+        body = new NettyOutputByteBuffer(client.newBodyBuffer(RequestBuilder.GROWABLE_BODY_CAPACITY));
+        invalidateTemplate();
 
         return body;
     }
@@ -90,6 +136,7 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
     public R updatePath(final String path) {
         this.path = path;
         updateRelativeUrl();
+        invalidateTemplate();
         return (R) this;
     }
 
@@ -97,15 +144,103 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
     public R updateQuery(final String query) {
         this.query = query;
         updateRelativeUrl();
+        invalidateTemplate();
         return (R) this;
     }
 
     @Override
     public R updateHeader(final CharSequence name, final CharSequence value) {
         this.headers.set(name, value);
+        invalidateTemplate();
         return (R) this;
     }
 
+    @Override
+    public Object encoded() {
+        if (bodyProducer != null || bodyFile != null) {
+            return streamedBody();
+        }
+
+        syncContentLength();
+
+        if (template == null) {
+            final FullHttpRequest request = (FullHttpRequest) get();
+            try {
+                template = TemplateClientCodec.encodeHead(request);
+            } finally {
+                request.release();
+            }
+        }
+
+        if (body == null || !body.buffer().isReadable()) {
+            return new EncodedHttpRequest(httpMethod, template.retainedDuplicate());
+        }
+
+        // head and body go out as one composite buffer, neither of them is copied
+        return new EncodedHttpRequest(httpMethod,
+                Unpooled.wrappedBuffer(template.retainedDuplicate(), body.buffer().retainedDuplicate()));
+    }
+
+    ByteBuf bodyContent() {
+        syncContentLength();
+        return body == null ? Unpooled.EMPTY_BUFFER : body.buffer().retainedDuplicate();
+    }
+
+    void release() {
+        invalidateTemplate();
+        releaseBody();
+    }
+
+    private StreamedRequestBody streamedBody() {
+        final DefaultHttpRequest head = new DefaultHttpRequest(httpVersion, httpMethod, relativeUrl);
+        head.headers().set(headers);
+
+        if (bodyFile != null) {
+            final long fileLength;
+            try {
+                fileLength = Files.size(bodyFile);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            HttpUtil.setContentLength(head, fileLength);
+            return new StreamedRequestBody(head, bodyFile, fileLength);
+        }
+
+        if (isProducerStarted) {
+            throw new IllegalStateException("The body of " + relativeUrl + " has already been streamed");
+        }
+
+        isProducerStarted = true;
+
+        if (bodyLength == BodyProducer.UNKNOWN_LENGTH) {
+            HttpUtil.setTransferEncodingChunked(head, true);
+        } else {
+            HttpUtil.setContentLength(head, bodyLength);
+        }
+
+        return new StreamedRequestBody(head, bodyProducer, bodyLength);
+    }
+
+    private void syncContentLength() {
+        if (!isGrowableBody || body == null) {
+            return;
+        }
+
+        final int length = body.buffer().readableBytes();
+        if (headers.getInt(HttpHeaderNames.CONTENT_LENGTH, -1) != length) {
+            headers.setInt(HttpHeaderNames.CONTENT_LENGTH, length);
+            invalidateTemplate();
+        }
+    }
+
+    void invalidateTemplate() {
+        if (template != null) {
+            template.release();
+            template = null;
+        }
+    }
+
     public void send() {
         chain.resendCurrentRequest();
     }
@@ -119,6 +254,16 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
         return client;
     }
 
+    @Override
+    public NettyRequestTimings timings() {
+        return timings;
+    }
+
+    @Override
+    public NettyRequestTimings nextTimings() {
+        return timings;
+    }
+
     @Override
     public void onConnected() {
         listener.onConnected((R) this);
@@ -134,6 +279,26 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
         listener.onResponseStarted((R) this, code);
     }
 
+    @Override
+    public boolean isHeaderOfInterest(final CharSequence name) {
+        if (headerInterest == null) {
+            return true;
+        }
+
+        for (int i = 0; i < headerInterest.length; i++) {
+            if (headerInterest[i].contentEqualsIgnoreCase(name)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean isBodyDiscarded() {
+        return isBodyDiscarded;
+    }
+
     @Override
     public void onHeader(final CharSequence key, final CharSequence value) {
         listener.onHeader(key, value);
@@ -156,11 +321,16 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
 
     @Override
     public void onResponseFinished() {
+        client.recordLatency(path, timings);
         listener.onResponseFinished();
     }
 
     @Override
     public void onListenerError(final Throwable error) {
+        if (client.metrics != null) {
+            client.metrics.onListenerError();
+        }
+
         listener.onListenerError(error);
     }
 
@@ -174,6 +344,22 @@ abstract class AbstractRequest<R extends HttpRequest & UpdatableNoBodyRequest> i
         listener.onDisconnectedByError((R) this, exception);
     }
 
+    private void releaseBody() {
+        if (body != null) {
+            body.buffer().release();
+            body = null;
+        }
+
+        if (bodyProducer != null) {
+            // once streaming has started the producer is closed together with the chunked input
+            if (!isProducerStarted) {
+                bodyProducer.close();
+            }
+
+            bodyProducer = null;
+        }
+    }
+
     private void updateRelativeUrl() {
         relativeUrl = query == null ? path : path + '?' + query;
     }
@@ -37,6 +37,9 @@ import fir.needle.web.http.client.UpdatableNoBodyRequest;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.util.concurrent.EventExecutor;
 
 abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyRequest> extends AbstractRequest<R>
@@ -50,9 +53,19 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
     private final AtomicBoolean isCanceled = new AtomicBoolean(false);
     private volatile boolean isCancelDone;
     private int repeatPeriodMs;
+    private final FixedRateTicker ticker;
     private Logger logger;
 
     private volatile Channel channel;
+    private boolean isAwaitingResponse;
+
+    private final boolean isConditional;
+    private String entityTag;
+    private String lastModified;
+    private boolean isNotModified;
+    private boolean isValidatorSource;
+    private boolean hasEntityTag;
+    private boolean hasLastModified;
 
     AbstractScheduledRequest(final RequestBuilder builder) {
         super(builder);
@@ -61,6 +74,8 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
         this.scheduledId = builder.scheduledId;
         this.logger = builder.logger;
         this.eventLoopGroup = builder.client.eventLoopGroup;
+        this.isConditional = builder.isConditionalPolling;
+        this.ticker = builder.overrunPolicy != null ? new FixedRateTicker(repeatPeriodMs, builder.overrunPolicy) : null;
     }
 
     @Override
@@ -72,18 +87,51 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
         super.onConnected();
     }
 
+    @Override
+    public void onBeforeRequestSend() {
+        isAwaitingResponse = true;
+
+        if (ticker != null) {
+            ticker.onSend(System.currentTimeMillis());
+        }
+
+        super.onBeforeRequestSend();
+    }
+
     @Override
     public void onResponseStarted(final int code) {
-        if (isCanceled.get()) {
+        isNotModified = isConditional && code == HttpResponseStatus.NOT_MODIFIED.code();
+        isValidatorSource = isNotModified || code >= HttpResponseStatus.OK.code() &&
+                code < HttpResponseStatus.MULTIPLE_CHOICES.code();
+        hasEntityTag = false;
+        hasLastModified = false;
+
+        if (isCanceled.get() || isNotModified) {
             return;
         }
 
         super.onResponseStarted(code);
     }
 
+    @Override
+    public boolean isHeaderOfInterest(final CharSequence name) {
+        // validators are needed for the next poll whether the listener reads them or not
+        if (isConditional && (HttpHeaderNames.ETAG.contentEqualsIgnoreCase(name) ||
+                HttpHeaderNames.LAST_MODIFIED.contentEqualsIgnoreCase(name))) {
+            return true;
+        }
+
+        return super.isHeaderOfInterest(name);
+    }
+
     @Override
     public void onHeader(final CharSequence key, final CharSequence value) {
-        if (isCanceled.get()) {
+        if (isConditional && isValidatorSource) {
+            rememberValidator(key, value);
+        }
+
+        // the validators are let in for the next poll only, the listener sees just the headers it asked for
+        if (isCanceled.get() || isNotModified || !super.isHeaderOfInterest(key)) {
             return;
         }
 
@@ -92,7 +140,7 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
 
     @Override
     public void onBodyStarted() {
-        if (isCanceled.get()) {
+        if (isCanceled.get() || isNotModified) {
             return;
         }
 
@@ -101,7 +149,7 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
 
     @Override
     public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
-        if (isCanceled.get()) {
+        if (isCanceled.get() || isNotModified) {
             return;
         }
 
@@ -110,7 +158,7 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
 
     @Override
     public void onBodyFinished() {
-        if (isCanceled.get()) {
+        if (isCanceled.get() || isNotModified) {
             return;
         }
 
@@ -119,13 +167,42 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
 
     @Override
     public void onResponseFinished() {
+        isAwaitingResponse = false;
+
+        if (ticker != null) {
+            ticker.advance(System.currentTimeMillis());
+        }
+
+        if (isConditional && isValidatorSource && !isNotModified) {
+            dropMissingValidators();
+        }
+
         if (isCanceled.get()) {
             return;
         }
 
+        if (isNotModified) {
+            isNotModified = false;
+            client.recordLatency(path, timings);
+            listener.onNotModified((R) this);
+            return;
+        }
+
         super.onResponseFinished();
     }
 
+    @Override
+    public R updatePath(final String path) {
+        forgetValidators();
+        return super.updatePath(path);
+    }
+
+    @Override
+    public R updateQuery(final String query) {
+        forgetValidators();
+        return super.updateQuery(query);
+    }
+
     @Override
     public void onListenerError(final Throwable error) {
         if (isCanceled.get()) {
@@ -140,11 +217,13 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
         /*we need this signal to know what is going on with our connection,
         to avoid receiving onDisconnected any time connection is lost/closed use adapters for listeners
         (for example SingleConnectSingleDisconnect)*/
+        isAwaitingResponse = false;
         super.onDisconnected();
     }
 
     @Override
     public void onDisconnectedByError(final AbstractHttpClientException exception) {
+        isAwaitingResponse = false;
         super.onDisconnectedByError(exception);
     }
 
@@ -162,7 +241,7 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
                             " in the thread " + Thread.currentThread());
                 }
                 isCanceled.set(true);
-                client.cancelScheduledRequest(AbstractScheduledRequest.this);
+                client.deregister(scheduledId);
             }
         };
 
@@ -206,14 +285,62 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
 
     @Override
     public long currentRequestDelayMs() {
+        if (ticker != null) {
+            return ticker.delayMs(System.currentTimeMillis());
+        }
+
         return repeatPeriodMs;
     }
 
+    public long tickLatenessMs() {
+        return ticker != null ? ticker.tickLatenessMs() : 0;
+    }
+
+    public long skippedTicks() {
+        return ticker != null ? ticker.skippedTicks() : 0;
+    }
+
+    void addValidators(final HttpHeaders requestHeaders) {
+        if (entityTag != null) {
+            requestHeaders.set(HttpHeaderNames.IF_NONE_MATCH, entityTag);
+        }
+
+        if (lastModified != null) {
+            requestHeaders.set(HttpHeaderNames.IF_MODIFIED_SINCE, lastModified);
+        }
+    }
+
+    long initialDelayMs(final long staggerMs) {
+        if (ticker == null) {
+            return staggerMs;
+        }
+
+        // fixed-rate requests are already spread by the wall-clock grid
+        final long nowMs = System.currentTimeMillis();
+        ticker.advance(nowMs);
+        return ticker.delayMs(nowMs);
+    }
+
+    @Override
+    public boolean hasNextRequest() {
+        return !isAwaitingResponse;
+    }
+
     @Override
     public boolean isCanceled() {
         return isCanceled.get();
     }
 
+    @Override
+    public boolean isFinished() {
+        return false;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return true;
+    }
+
     @Override
     public Channel channel() {
         return channel;
@@ -235,6 +362,50 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
         }
     }
 
+    @Override
+    public void attach(final Channel channel) {
+        this.isCancelDone = false;
+        this.channel = channel;
+    }
+
+    private void rememberValidator(final CharSequence key, final CharSequence value) {
+        // validators are part of the cached request, so it's re-encoded only when they really change
+        if (HttpHeaderNames.ETAG.contentEqualsIgnoreCase(key)) {
+            hasEntityTag = true;
+
+            if (entityTag == null || !entityTag.contentEquals(value)) {
+                entityTag = value.toString();
+                invalidateTemplate();
+            }
+        } else if (HttpHeaderNames.LAST_MODIFIED.contentEqualsIgnoreCase(key)) {
+            hasLastModified = true;
+
+            if (lastModified == null || !lastModified.contentEquals(value)) {
+                lastModified = value.toString();
+                invalidateTemplate();
+            }
+        }
+    }
+
+    // a full response describes the current representation, validators it didn't send no longer apply to it
+    private void dropMissingValidators() {
+        if (!hasEntityTag && entityTag != null) {
+            entityTag = null;
+            invalidateTemplate();
+        }
+
+        if (!hasLastModified && lastModified != null) {
+            lastModified = null;
+            invalidateTemplate();
+        }
+    }
+
+    private void forgetValidators() {
+        // validators belong to the resource they came from
+        entityTag = null;
+        lastModified = null;
+    }
+
     @Override
     public void setCancelIsDone() {
         if (logger.isTraceEnabled()) {
@@ -242,6 +413,7 @@ abstract class AbstractScheduledRequest<R extends HttpRequest & UpdatableNoBodyR
                     " in the thread " + Thread.currentThread());
         }
 
+        release();
         isCancelDone = true;
 
         synchronized (lock) {
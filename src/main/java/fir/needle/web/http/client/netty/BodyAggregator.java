@@ -0,0 +1,259 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.BaseHttpRequestListener;
+import fir.needle.web.http.client.HttpRequest;
+import fir.needle.web.http.client.HttpResponseListener;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpHeaderNames;
+
+/*
+ * Collects the body of every response into one pooled buffer and hands it over in a single callback, all the other
+ * notifications go to the delegate listener. The buffer is sized from Content-Length when the response has it,
+ * a chunked body is gathered into a composite buffer over the received chunks. Either way it is released as soon as
+ * the callback returns, so the listener must copy whatever it wants to keep.
+ */
+public final class BodyAggregator<R extends HttpRequest> implements HttpResponseListener<R> {
+    private static final long UNKNOWN_LENGTH = -1;
+
+    private final BodyListener<R> bodyListener;
+    private final int maxBodySize;
+    private final boolean isDirect;
+    private final ByteBufAllocator allocator;
+    private final HttpResponseListener<R> delegate;
+    private final NettyInputByteBuffer area = new NettyInputByteBuffer();
+
+    private R request;
+    private long contentLength = UNKNOWN_LENGTH;
+    private ByteBuf body;
+    private boolean isOverflowed;
+
+    private BodyAggregator(final BodyAggregatorBuilder<R> builder) {
+        this.bodyListener = builder.bodyListener;
+        this.maxBodySize = builder.maxBodySize;
+        this.isDirect = builder.isDirect;
+        this.allocator = builder.allocator;
+        this.delegate = builder.delegate;
+    }
+
+    public static <R extends HttpRequest> BodyAggregatorBuilder<R> builder(final BodyListener<R> bodyListener) {
+        return new BodyAggregatorBuilder<>(bodyListener);
+    }
+
+    @Override
+    public void onBeforeRequestSent(final R request) {
+        delegate.onBeforeRequestSent(request);
+    }
+
+    @Override
+    public void onConnected(final R request) {
+        delegate.onConnected(request);
+    }
+
+    @Override
+    public void onResponseStarted(final R request, final int code) {
+        this.request = request;
+        this.contentLength = UNKNOWN_LENGTH;
+        delegate.onResponseStarted(request, code);
+    }
+
+    @Override
+    public void onHeader(final CharSequence key, final CharSequence value) {
+        if (HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(key)) {
+            contentLength = Long.parseLong(value.toString());
+        }
+
+        delegate.onHeader(key, value);
+    }
+
+    @Override
+    public void onBodyStarted() {
+        releaseBody();
+        isOverflowed = false;
+
+        delegate.onBodyStarted();
+
+        if (contentLength > maxBodySize) {
+            isOverflowed = true;
+            throw new IllegalStateException("Body of " + contentLength + " bytes exceeds the limit of " +
+                    maxBodySize + " bytes");
+        }
+
+        if (contentLength == UNKNOWN_LENGTH) {
+            body = isDirect ? allocator.compositeDirectBuffer(Integer.MAX_VALUE) :
+                    allocator.compositeHeapBuffer(Integer.MAX_VALUE);
+            return;
+        }
+
+        body = isDirect ? allocator.directBuffer((int) contentLength, maxBodySize) :
+                allocator.heapBuffer((int) contentLength, maxBodySize);
+    }
+
+    @Override
+    public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+        if (body == null || length == 0) {
+            // the body has overflowed, that has already been reported
+            return;
+        }
+
+        if (body.readableBytes() + length > maxBodySize) {
+            releaseBody();
+            isOverflowed = true;
+            throw new IllegalStateException("Body exceeds the limit of " + maxBodySize + " bytes");
+        }
+
+        if (body instanceof CompositeByteBuf) {
+            ((CompositeByteBuf) body).addComponent(true, chunk(buffer, startIndex, (int) length));
+            return;
+        }
+
+        if (buffer instanceof NettyInputByteBuffer) {
+            final ByteBuf source = ((NettyInputByteBuffer) buffer).buffer();
+            body.writeBytes(source, source.readerIndex() + (int) startIndex, (int) length);
+            return;
+        }
+
+        for (long i = startIndex; i < startIndex + length; i++) {
+            body.writeByte(buffer.getByte(i));
+        }
+    }
+
+    @Override
+    public void onBodyFinished() {
+        try {
+            if (!isOverflowed) {
+                area.setBuffer(body != null ? body : Unpooled.EMPTY_BUFFER);
+                bodyListener.onBody(request, area, area.length());
+            }
+        } finally {
+            releaseBody();
+            area.setBuffer(null);
+        }
+
+        delegate.onBodyFinished();
+    }
+
+    @Override
+    public void onResponseFinished() {
+        delegate.onResponseFinished();
+    }
+
+    @Override
+    public void onNotModified(final R request) {
+        delegate.onNotModified(request);
+    }
+
+    @Override
+    public void onListenerError(final Throwable error) {
+        delegate.onListenerError(error);
+    }
+
+    @Override
+    public void onDisconnected(final R request) {
+        releaseBody();
+        delegate.onDisconnected(request);
+    }
+
+    @Override
+    public void onDisconnectedByError(final R request, final AbstractHttpClientException exception) {
+        releaseBody();
+        delegate.onDisconnectedByError(request, exception);
+    }
+
+    private ByteBuf chunk(final ByteArea buffer, final long startIndex, final int length) {
+        if (buffer instanceof NettyInputByteBuffer) {
+            // keeps the received chunk instead of copying it, it is released together with the composite
+            final ByteBuf source = ((NettyInputByteBuffer) buffer).buffer();
+            return source.retainedSlice(source.readerIndex() + (int) startIndex, length);
+        }
+
+        final ByteBuf result = isDirect ? allocator.directBuffer(length) : allocator.heapBuffer(length);
+        for (long i = startIndex; i < startIndex + length; i++) {
+            result.writeByte(buffer.getByte(i));
+        }
+
+        return result;
+    }
+
+    private void releaseBody() {
+        if (body != null) {
+            body.release();
+            body = null;
+        }
+    }
+
+    @FunctionalInterface
+    public interface BodyListener<R extends HttpRequest> {
+        void onBody(R request, ByteArea body, long length);
+    }
+
+    public static final class BodyAggregatorBuilder<R extends HttpRequest> {
+        private static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024 * 1024;
+
+        private final BodyListener<R> bodyListener;
+        private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+        private boolean isDirect;
+        private ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+        private HttpResponseListener<R> delegate = new BaseHttpRequestListener<>();
+
+        private BodyAggregatorBuilder(final BodyListener<R> bodyListener) {
+            this.bodyListener = bodyListener;
+        }
+
+        public BodyAggregatorBuilder<R> withMaxBodySize(final int maxBodySize) {
+            if (maxBodySize < 0) {
+                throw new IllegalArgumentException("Max body size must not be negative: " + maxBodySize);
+            }
+
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        public BodyAggregatorBuilder<R> withDirectBuffers() {
+            this.isDirect = true;
+            return this;
+        }
+
+        public BodyAggregatorBuilder<R> withAllocator(final ByteBufAllocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public BodyAggregatorBuilder<R> withListener(final HttpResponseListener<R> delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        public BodyAggregator<R> build() {
+            return new BodyAggregator<>(this);
+        }
+    }
+}
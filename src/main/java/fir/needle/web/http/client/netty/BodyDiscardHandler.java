@@ -0,0 +1,79 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+/*
+ * Sits between the codec and the decompressor. When the answered request doesn't want its body, the chunks are
+ * released right here, so they are neither inflated nor dispatched, and only an empty last content goes further.
+ */
+class BodyDiscardHandler extends ChannelInboundHandlerAdapter {
+    private final NettyRequestHolder requestHolder;
+    private final ResponseDecompressor decompressor;
+
+    private boolean isDiscarding;
+
+    BodyDiscardHandler(final NettyRequestHolder requestHolder, final ResponseDecompressor decompressor) {
+        this.requestHolder = requestHolder;
+        this.decompressor = decompressor;
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (msg instanceof HttpResponse) {
+            isDiscarding = requestHolder.listener().isBodyDiscarded();
+            decompressor.bypass(isDiscarding);
+
+            if (isDiscarding && msg instanceof FullHttpResponse) {
+                final FullHttpResponse response = (FullHttpResponse) msg;
+                ctx.fireChannelRead(response.replace(Unpooled.EMPTY_BUFFER));
+                response.release();
+                return;
+            }
+
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        if (!isDiscarding || !(msg instanceof HttpContent)) {
+            ctx.fireChannelRead(msg);
+            return;
+        }
+
+        ReferenceCountUtil.release(msg);
+
+        if (msg instanceof LastHttpContent) {
+            isDiscarding = false;
+            ctx.fireChannelRead(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.function.Supplier;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+
+public interface ContentDecoderFactory {
+    ContentDecoderFactory GZIP = of("gzip", () -> ZlibCodecFactory.newZlibDecoder(ZlibWrapper.GZIP));
+    ContentDecoderFactory DEFLATE = of("deflate", () -> ZlibCodecFactory.newZlibDecoder(ZlibWrapper.ZLIB_OR_NONE));
+
+    // token used in accept-encoding and matched case-insensitively against content-encoding
+    String encoding();
+
+    // a new decoder for every response, it turns the encoded body into plain ByteBufs
+    ChannelHandler newDecoder();
+
+    static ContentDecoderFactory of(final String encoding, final Supplier<? extends ChannelHandler> decoders) {
+        return new ContentDecoderFactory() {
+            @Override
+            public String encoding() {
+                return encoding;
+            }
+
+            @Override
+            public ChannelHandler newDecoder() {
+                return decoders.get();
+            }
+
+            @Override
+            public String toString() {
+                return encoding;
+            }
+        };
+    }
+}
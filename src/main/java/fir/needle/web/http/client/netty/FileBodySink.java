@@ -0,0 +1,372 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.BaseHttpRequestListener;
+import fir.needle.web.http.client.HttpRequest;
+import fir.needle.web.http.client.HttpResponseListener;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/*
+ * Writes the body of every successful response straight from the Netty buffer into a file, all the other
+ * notifications go to the delegate listener. The body goes to a temporary file next to the target, which replaces the
+ * target atomically once the body is complete, so error pages and aborted downloads leave the previous file intact.
+ */
+public final class FileBodySink<R extends HttpRequest> implements HttpResponseListener<R> {
+    private static final long UNKNOWN_LENGTH = -1;
+    private static final int COPY_BUFFER_SIZE = 8 * 1024;
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final Path path;
+    private final SyncPolicy syncPolicy;
+    private final boolean isPreallocated;
+    private final boolean isMemoryMapped;
+    private final int mapWindowSize;
+    private final HttpResponseListener<R> delegate;
+    private final CompletionListener completionListener;
+
+    private long contentLength = UNKNOWN_LENGTH;
+    private boolean isSuccess;
+    private Path tempPath;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long written;
+    private ByteBuffer copyBuffer;
+
+    private FileBodySink(final FileBodySinkBuilder<R> builder) {
+        this.path = builder.path;
+        this.syncPolicy = builder.syncPolicy;
+        this.isPreallocated = builder.isPreallocated;
+        this.isMemoryMapped = builder.isMemoryMapped;
+        this.mapWindowSize = builder.mapWindowSize;
+        this.delegate = builder.delegate;
+        this.completionListener = builder.completionListener;
+    }
+
+    public static <R extends HttpRequest> FileBodySinkBuilder<R> builder(final Path path) {
+        return new FileBodySinkBuilder<>(path);
+    }
+
+    @Override
+    public void onBeforeRequestSent(final R request) {
+        delegate.onBeforeRequestSent(request);
+    }
+
+    @Override
+    public void onConnected(final R request) {
+        delegate.onConnected(request);
+    }
+
+    @Override
+    public void onResponseStarted(final R request, final int code) {
+        this.contentLength = UNKNOWN_LENGTH;
+        this.isSuccess = code >= HttpResponseStatus.OK.code() && code < HttpResponseStatus.MULTIPLE_CHOICES.code();
+        delegate.onResponseStarted(request, code);
+    }
+
+    @Override
+    public void onHeader(final CharSequence key, final CharSequence value) {
+        if (HttpHeaderNames.CONTENT_LENGTH.contentEqualsIgnoreCase(key)) {
+            contentLength = Long.parseLong(value.toString());
+        }
+
+        delegate.onHeader(key, value);
+    }
+
+    @Override
+    public void onBodyStarted() {
+        discard();
+        written = 0;
+
+        if (!isSuccess) {
+            // an error page is not the resource, the delegate still gets it
+            delegate.onBodyStarted();
+            return;
+        }
+
+        try {
+            final Path directory = path.toAbsolutePath().getParent();
+            tempPath = Files.createTempFile(directory, path.getFileName().toString(), TEMP_SUFFIX);
+            channel = FileChannel.open(tempPath, StandardOpenOption.WRITE, StandardOpenOption.READ);
+
+            if (isPreallocated && contentLength > 0 && !isMemoryMapped) {
+                // sizes the file once instead of growing it chunk by chunk, the tail is trimmed on completion
+                channel.write(ByteBuffer.allocate(1), contentLength - 1);
+            }
+        } catch (final IOException e) {
+            discard();
+            throw new UncheckedIOException(e);
+        }
+
+        delegate.onBodyStarted();
+    }
+
+    @Override
+    public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+        if (channel == null) {
+            // not a 2xx, or the file couldn't be opened or a previous chunk failed and the error was reported
+            return;
+        }
+
+        try {
+            if (isMemoryMapped) {
+                writeMapped(buffer, startIndex, length);
+            } else {
+                writeToChannel(buffer, startIndex, length);
+            }
+
+            if (syncPolicy == SyncPolicy.EVERY_CHUNK) {
+                sync();
+            }
+        } catch (final IOException e) {
+            discard();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void onBodyFinished() {
+        if (channel != null) {
+            try {
+                mapped = null;
+                channel.truncate(written);
+
+                if (syncPolicy != SyncPolicy.NONE) {
+                    channel.force(true);
+                }
+
+                channel.close();
+                channel = null;
+
+                // a rename within one directory, readers see either the previous file or the complete new one
+                Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                tempPath = null;
+            } catch (final IOException e) {
+                discard();
+                throw new UncheckedIOException(e);
+            }
+
+            if (completionListener != null) {
+                completionListener.onFileWritten(path, written);
+            }
+        }
+
+        delegate.onBodyFinished();
+    }
+
+    @Override
+    public void onResponseFinished() {
+        delegate.onResponseFinished();
+    }
+
+    @Override
+    public void onNotModified(final R request) {
+        delegate.onNotModified(request);
+    }
+
+    @Override
+    public void onListenerError(final Throwable error) {
+        delegate.onListenerError(error);
+    }
+
+    @Override
+    public void onDisconnected(final R request) {
+        discard();
+        delegate.onDisconnected(request);
+    }
+
+    @Override
+    public void onDisconnectedByError(final R request, final AbstractHttpClientException exception) {
+        discard();
+        delegate.onDisconnectedByError(request, exception);
+    }
+
+    private void writeToChannel(final ByteArea buffer, final long startIndex, final long length) throws IOException {
+        if (buffer instanceof NettyInputByteBuffer) {
+            final NettyInputByteBuffer nettyBuffer = (NettyInputByteBuffer) buffer;
+
+            long done = 0;
+            while (done < length) {
+                done += nettyBuffer.getBytes(startIndex + done, channel, written + done, (int) (length - done));
+            }
+
+            written += length;
+            return;
+        }
+
+        if (copyBuffer == null) {
+            copyBuffer = ByteBuffer.allocateDirect(COPY_BUFFER_SIZE);
+        }
+
+        for (long i = startIndex; i < startIndex + length; ) {
+            copyBuffer.clear();
+            while (copyBuffer.hasRemaining() && i < startIndex + length) {
+                copyBuffer.put(buffer.getByte(i++));
+            }
+
+            copyBuffer.flip();
+            while (copyBuffer.hasRemaining()) {
+                written += channel.write(copyBuffer, written);
+            }
+        }
+    }
+
+    private void writeMapped(final ByteArea buffer, final long startIndex, final long length) throws IOException {
+        long done = 0;
+
+        while (done < length) {
+            if (mapped == null || !mapped.hasRemaining()) {
+                // a window at a time, a single mapping can't exceed 2 GB; the last window of a known length is cut
+                // to the body so the file isn't grown past it
+                final long size = contentLength > written ? Math.min(mapWindowSize, contentLength - written) :
+                        mapWindowSize;
+                mapped = channel.map(FileChannel.MapMode.READ_WRITE, written, size);
+            }
+
+            final int part = (int) Math.min(length - done, mapped.remaining());
+
+            if (buffer instanceof NettyInputByteBuffer) {
+                final int limit = mapped.limit();
+                mapped.limit(mapped.position() + part);
+                ((NettyInputByteBuffer) buffer).getBytes(startIndex + done, mapped);
+                mapped.limit(limit);
+            } else {
+                for (int i = 0; i < part; i++) {
+                    mapped.put(buffer.getByte(startIndex + done + i));
+                }
+            }
+
+            done += part;
+            written += part;
+        }
+    }
+
+    private void sync() throws IOException {
+        if (mapped != null) {
+            mapped.force();
+            return;
+        }
+
+        channel.force(false);
+    }
+
+    // drops an unfinished body, the target file is only ever replaced by a complete one
+    private void discard() {
+        mapped = null;
+
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (final IOException e) {
+                //
+            }
+
+            channel = null;
+        }
+
+        if (tempPath != null) {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (final IOException e) {
+                //
+            }
+
+            tempPath = null;
+        }
+    }
+
+    public enum SyncPolicy {
+        NONE,
+        ON_COMPLETE,
+        EVERY_CHUNK
+    }
+
+    @FunctionalInterface
+    public interface CompletionListener {
+        void onFileWritten(Path path, long size);
+    }
+
+    public static final class FileBodySinkBuilder<R extends HttpRequest> {
+        private static final int DEFAULT_MAP_WINDOW_SIZE = 16 * 1024 * 1024;
+
+        private final Path path;
+        private SyncPolicy syncPolicy = SyncPolicy.NONE;
+        private boolean isPreallocated;
+        private boolean isMemoryMapped;
+        private int mapWindowSize = DEFAULT_MAP_WINDOW_SIZE;
+        private HttpResponseListener<R> delegate = new BaseHttpRequestListener<>();
+        private CompletionListener completionListener;
+
+        private FileBodySinkBuilder(final Path path) {
+            this.path = path;
+        }
+
+        public FileBodySinkBuilder<R> withSyncPolicy(final SyncPolicy syncPolicy) {
+            this.syncPolicy = syncPolicy;
+            return this;
+        }
+
+        public FileBodySinkBuilder<R> withPreallocation() {
+            this.isPreallocated = true;
+            return this;
+        }
+
+        public FileBodySinkBuilder<R> withMemoryMapping() {
+            this.isMemoryMapped = true;
+            return this;
+        }
+
+        public FileBodySinkBuilder<R> withMapWindowSize(final int mapWindowSize) {
+            this.mapWindowSize = mapWindowSize;
+            return this;
+        }
+
+        public FileBodySinkBuilder<R> withListener(final HttpResponseListener<R> delegate) {
+            this.delegate = delegate;
+            return this;
+        }
+
+        public FileBodySinkBuilder<R> withCompletionListener(final CompletionListener completionListener) {
+            this.completionListener = completionListener;
+            return this;
+        }
+
+        public FileBodySink<R> build() {
+            return new FileBodySink<>(this);
+        }
+    }
+}
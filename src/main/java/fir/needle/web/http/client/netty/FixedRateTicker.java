@@ -0,0 +1,118 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import fir.needle.web.http.client.OverrunPolicy;
+
+final class FixedRateTicker {
+    private final long periodMs;
+    private final OverrunPolicy overrunPolicy;
+
+    // ticks are multiples of the period since the epoch, so pollers on different hosts sample at the same instants
+    private long nextTickMs;
+    private long crtTickMs;
+    private boolean isTickAssigned;
+
+    private long tickLatenessMs;
+    private long skippedTicks;
+
+    FixedRateTicker(final long periodMs, final OverrunPolicy overrunPolicy) {
+        if (periodMs <= 0) {
+            throw new IllegalArgumentException("Period must be positive: " + periodMs);
+        }
+
+        if (overrunPolicy == null) {
+            throw new IllegalArgumentException("Overrun policy must be set");
+        }
+
+        this.periodMs = periodMs;
+        this.overrunPolicy = overrunPolicy;
+    }
+
+    // assigns the tick of the next exchange, called once per completed exchange
+    void advance(final long nowMs) {
+        if (nextTickMs == 0) {
+            nextTickMs = (nowMs + periodMs - 1) / periodMs * periodMs;
+        }
+
+        isTickAssigned = true;
+
+        if (nowMs <= nextTickMs) {
+            crtTickMs = nextTickMs;
+            nextTickMs += periodMs;
+            return;
+        }
+
+        final long passedTicks = (nowMs - nextTickMs) / periodMs + 1;
+        final long latestPassedTickMs = nextTickMs + (passedTicks - 1) * periodMs;
+
+        switch (overrunPolicy) {
+            case SKIP:
+                skippedTicks += passedTicks;
+                crtTickMs = latestPassedTickMs + periodMs;
+                nextTickMs = crtTickMs + periodMs;
+                return;
+
+            case COALESCE:
+                skippedTicks += passedTicks - 1;
+                crtTickMs = latestPassedTickMs;
+                nextTickMs = latestPassedTickMs + periodMs;
+                return;
+
+            case QUEUE_ONE:
+                skippedTicks += Math.max(0, passedTicks - 2);
+                crtTickMs = nextTickMs;
+                nextTickMs = passedTicks > 1 ? latestPassedTickMs : nextTickMs + periodMs;
+                return;
+
+            default:
+                throw new IllegalStateException("Unknown overrun policy " + overrunPolicy);
+        }
+    }
+
+    // delay until the assigned tick, has no side effects so it may be asked as often as needed
+    long delayMs(final long nowMs) {
+        final long tickMs = isTickAssigned ? crtTickMs : nextTickMs;
+        return Math.max(0, tickMs - nowMs);
+    }
+
+    void onSend(final long nowMs) {
+        if (!isTickAssigned) {
+            // sent without going through advance (e.g. right after a reconnect), account it to the latest tick
+            crtTickMs = nowMs / periodMs * periodMs;
+            nextTickMs = crtTickMs + periodMs;
+        }
+
+        isTickAssigned = false;
+        tickLatenessMs = nowMs - crtTickMs;
+    }
+
+    long tickLatenessMs() {
+        return tickLatenessMs;
+    }
+
+    long skippedTicks() {
+        return skippedTicks;
+    }
+}
@@ -0,0 +1,277 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import fir.needle.joint.logging.Logger;
+import fir.needle.web.NettyMetrics;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.HttpClientException;
+import fir.needle.web.http.client.HttpConnectTimeoutException;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http2.Http2MultiplexCodec;
+import io.netty.handler.codec.http2.Http2MultiplexCodecBuilder;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.ssl.ApplicationProtocolNames;
+import io.netty.handler.ssl.ApplicationProtocolNegotiationHandler;
+import io.netty.handler.ssl.SslContext;
+
+final class Http2ConnectionManager {
+    private final Bootstrap bootstrap;
+    private final SslContext sslContext;
+    private final NettyMetrics metrics;
+    private final String host;
+    private final int port;
+    private final Logger logger;
+
+    private final Object lock = new Object();
+    private final List<NettyHttpClient.ConnectTask> waitingTasks = new ArrayList<>();
+
+    private Channel connection;
+    private boolean isConnecting;
+    private volatile boolean isHttp1Fallback;
+    private boolean isClosed;
+
+    Http2ConnectionManager(final Bootstrap bootstrap, final SslContext sslContext, final String host, final int port,
+            final NettyMetrics metrics, final Logger logger) {
+
+        this.sslContext = sslContext;
+        this.metrics = metrics;
+        this.host = host;
+        this.port = port;
+        this.logger = logger;
+
+        this.bootstrap = bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(final Channel ch) {
+                fillPipeline(ch);
+            }
+        });
+    }
+
+    boolean isHttp1Fallback() {
+        return isHttp1Fallback;
+    }
+
+    void openStream(final NettyHttpClient.ConnectTask connectTask) {
+        final Channel readyConnection;
+        final boolean isManagerClosed;
+        boolean shouldConnect = false;
+
+        synchronized (lock) {
+            isManagerClosed = isClosed;
+            readyConnection = connection != null && connection.isActive() ? connection : null;
+
+            if (!isManagerClosed && readyConnection == null) {
+                waitingTasks.add(connectTask);
+
+                if (!isConnecting) {
+                    isConnecting = true;
+                    shouldConnect = true;
+                }
+            }
+        }
+
+        if (isManagerClosed) {
+            connectTask.fail(new HttpClientException("Client is closed"));
+        } else if (readyConnection != null) {
+            connectTask.openStream(readyConnection);
+        } else if (shouldConnect) {
+            connect();
+        }
+    }
+
+    void close() {
+        final Channel toClose;
+        final List<NettyHttpClient.ConnectTask> waitingCopy;
+
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+
+            isClosed = true;
+            toClose = connection;
+            waitingCopy = new ArrayList<>(waitingTasks);
+            waitingTasks.clear();
+        }
+
+        if (toClose != null) {
+            toClose.close();
+        }
+
+        for (final NettyHttpClient.ConnectTask crtTask : waitingCopy) {
+            crtTask.fail(new HttpClientException("Client is closed"));
+        }
+    }
+
+    private void connect() {
+        if (logger.isTraceEnabled()) {
+            logger.trace(getClass().getSimpleName() + ".connect opening HTTP/2 connection to " + host + ':' + port +
+                    " in the thread " + Thread.currentThread());
+        }
+
+        bootstrap.connect().addListener((ChannelFuture future) ->
+                future.channel().closeFuture().addListener(closeFuture -> onClosed(future.channel(), future.cause())));
+    }
+
+    private void fillPipeline(final Channel channel) {
+        final ChannelPipeline pipeline = channel.pipeline();
+
+        if (metrics != null) {
+            pipeline.addLast(metrics.channelHandler());
+        }
+
+        if (sslContext == null) {
+            // h2c with prior knowledge, the connection preface is sent right after connect
+            pipeline.addLast(newMultiplexCodec());
+            pipeline.addLast(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+                    super.channelActive(ctx);
+                    ctx.pipeline().remove(this);
+                    onReady(ctx.channel());
+                }
+            });
+
+            return;
+        }
+
+        pipeline.addLast(sslContext.newHandler(channel.alloc(), host, port));
+        pipeline.addLast(new ApplicationProtocolNegotiationHandler(ApplicationProtocolNames.HTTP_1_1) {
+            @Override
+            protected void configurePipeline(final ChannelHandlerContext ctx, final String protocol) {
+                if (ApplicationProtocolNames.HTTP_2.equals(protocol)) {
+                    ctx.pipeline().addLast(newMultiplexCodec());
+                    onReady(ctx.channel());
+                    return;
+                }
+
+                onHttp1Negotiated(ctx.channel());
+            }
+        });
+    }
+
+    private Http2MultiplexCodec newMultiplexCodec() {
+        return Http2MultiplexCodecBuilder.forClient(PushedStreamRejector.INSTANCE)
+                .initialSettings(Http2Settings.defaultSettings().pushEnabled(false))
+                .build();
+    }
+
+    private void onReady(final Channel readyConnection) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(getClass().getSimpleName() + ".onReady HTTP/2 connection to " + host + ':' + port +
+                    " is ready in the channel " + readyConnection.id() + " and in the thread " +
+                    Thread.currentThread());
+        }
+
+        final List<NettyHttpClient.ConnectTask> waitingCopy;
+
+        synchronized (lock) {
+            if (isClosed) {
+                readyConnection.close();
+                return;
+            }
+
+            connection = readyConnection;
+            isConnecting = false;
+            waitingCopy = new ArrayList<>(waitingTasks);
+            waitingTasks.clear();
+        }
+
+        for (final NettyHttpClient.ConnectTask crtTask : waitingCopy) {
+            crtTask.openStream(readyConnection);
+        }
+    }
+
+    private void onHttp1Negotiated(final Channel negotiatedConnection) {
+        if (logger.isInfoEnabled()) {
+            logger.info("Server " + host + ':' + port + " does not support h2, falling back to HTTP/1.1");
+        }
+
+        final List<NettyHttpClient.ConnectTask> waitingCopy;
+
+        synchronized (lock) {
+            isHttp1Fallback = true;
+            isConnecting = false;
+            waitingCopy = new ArrayList<>(waitingTasks);
+            waitingTasks.clear();
+        }
+
+        negotiatedConnection.close();
+
+        for (final NettyHttpClient.ConnectTask crtTask : waitingCopy) {
+            crtTask.run();
+        }
+    }
+
+    private void onClosed(final Channel closedConnection, final Throwable connectError) {
+        final List<NettyHttpClient.ConnectTask> waitingCopy;
+
+        synchronized (lock) {
+            if (connection == closedConnection) {
+                connection = null;
+                return;
+            }
+
+            if (!isConnecting) {
+                return;
+            }
+
+            // closed before it became ready: connect or TLS handshake failure
+            isConnecting = false;
+            waitingCopy = new ArrayList<>(waitingTasks);
+            waitingTasks.clear();
+        }
+
+        final String hostPort = host + ":" + port;
+        final AbstractHttpClientException error = connectError != null ?
+                new HttpConnectTimeoutException("Failed to establish connection to " + hostPort, connectError) :
+                new HttpClientException("Connection to " + hostPort + " was closed before HTTP/2 was ready");
+
+        for (final NettyHttpClient.ConnectTask crtTask : waitingCopy) {
+            crtTask.retryLater(error);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class PushedStreamRejector extends ChannelInboundHandlerAdapter {
+        private static final PushedStreamRejector INSTANCE = new PushedStreamRejector();
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            // server push is disabled in our settings, a well-behaved server never opens a stream towards us
+            ctx.close();
+        }
+    }
+}
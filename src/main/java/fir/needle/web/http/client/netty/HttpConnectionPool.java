@@ -0,0 +1,284 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import fir.needle.joint.logging.Logger;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.HttpClientException;
+import fir.needle.web.http.client.HttpConnectTimeoutException;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+
+final class HttpConnectionPool {
+    static final String DECOMPRESSOR_HANDLER = "decompressorHandler";
+    static final String BODY_DISCARD_HANDLER = "bodyDiscardHandler";
+    static final String READ_TIMEOUT_HANDLER = "readTimeoutHandler";
+    static final String NOTIFICATION_HANDLER = "httpNotificationHandler";
+    static final String SEND_REQUEST_HANDLER = "sendRequestHandler";
+    static final String RECONNECT_HANDLER = "reconnectHandler";
+
+    private static final String IDLE_STATE_HANDLER = "idleStateHandler";
+    private static final String IDLE_CONNECTION_HANDLER = "idleConnectionHandler";
+
+    private final EventLoopGroup eventLoopGroup;
+    private final int maxConnections;
+    private final int maxIdleConnections;
+    private final int idleTimeoutMs;
+    private final int maxPendingAcquires;
+    private final int acquireTimeoutMs;
+    private final Logger logger;
+
+    private final Object lock = new Object();
+    private final Deque<Channel> idleChannels = new ArrayDeque<>();
+    private final Deque<PendingAcquire> pendingAcquires = new ArrayDeque<>();
+
+    private int openedConnections;
+    private boolean isClosed;
+
+    HttpConnectionPool(final EventLoopGroup eventLoopGroup, final int maxConnections, final int maxIdleConnections,
+            final int idleTimeoutMs, final int maxPendingAcquires, final int acquireTimeoutMs, final Logger logger) {
+
+        this.eventLoopGroup = eventLoopGroup;
+        this.maxConnections = maxConnections;
+        this.maxIdleConnections = maxIdleConnections;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxPendingAcquires = maxPendingAcquires;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.logger = logger;
+    }
+
+    void acquire(final NettyHttpClient.ConnectTask connectTask) {
+        final Channel idleChannel;
+        AbstractHttpClientException error = null;
+
+        synchronized (lock) {
+            if (isClosed) {
+                idleChannel = null;
+                error = new HttpClientException("Connection pool is closed");
+            } else {
+                // the most recently released connection is the least likely to be closed by the server
+                idleChannel = idleChannels.pollLast();
+
+                if (idleChannel == null) {
+                    if (openedConnections < maxConnections) {
+                        openedConnections++;
+                    } else if (pendingAcquires.size() < maxPendingAcquires) {
+                        pendingAcquires.addLast(new PendingAcquire(connectTask));
+                        return;
+                    } else {
+                        error = new HttpClientException(
+                                "Too many pending connection acquires: " + maxPendingAcquires);
+                    }
+                }
+            }
+        }
+
+        if (error != null) {
+            connectTask.fail(error);
+            return;
+        }
+
+        if (idleChannel != null) {
+            attach(connectTask, idleChannel);
+            return;
+        }
+
+        connect(connectTask);
+    }
+
+    void release(final Channel channel) {
+        if (logger.isTraceEnabled()) {
+            logger.trace(getClass().getSimpleName() + ".release returning connection to " +
+                    channel.remoteAddress() + " in the channel " + channel.id() + " and in the thread " +
+                    Thread.currentThread());
+        }
+
+        final ChannelPipeline pipeline = channel.pipeline();
+        pipeline.remove(BODY_DISCARD_HANDLER);
+        pipeline.remove(READ_TIMEOUT_HANDLER);
+        pipeline.remove(NOTIFICATION_HANDLER);
+        pipeline.remove(SEND_REQUEST_HANDLER);
+        pipeline.remove(RECONNECT_HANDLER);
+
+        pipeline.addLast(IDLE_STATE_HANDLER, new IdleStateHandler(0, 0, idleTimeoutMs, TimeUnit.MILLISECONDS));
+        pipeline.addLast(IDLE_CONNECTION_HANDLER, new IdleConnectionHandler());
+
+        final PendingAcquire pendingAcquire;
+
+        synchronized (lock) {
+            pendingAcquire = isClosed ? null : pendingAcquires.pollFirst();
+
+            if (pendingAcquire == null) {
+                if (isClosed || !channel.isActive() || idleChannels.size() >= maxIdleConnections) {
+                    channel.close();
+                    return;
+                }
+
+                idleChannels.addLast(channel);
+                return;
+            }
+        }
+
+        pendingAcquire.timeout.cancel(false);
+        attach(pendingAcquire.connectTask, channel);
+    }
+
+    void close() {
+        final List<Channel> idleCopy;
+        final List<PendingAcquire> pendingCopy;
+
+        synchronized (lock) {
+            if (isClosed) {
+                return;
+            }
+
+            isClosed = true;
+            idleCopy = new ArrayList<>(idleChannels);
+            pendingCopy = new ArrayList<>(pendingAcquires);
+
+            idleChannels.clear();
+            pendingAcquires.clear();
+        }
+
+        for (final Channel crtChannel : idleCopy) {
+            crtChannel.close();
+        }
+
+        for (final PendingAcquire crtPendingAcquire : pendingCopy) {
+            crtPendingAcquire.timeout.cancel(false);
+            crtPendingAcquire.connectTask.fail(new HttpClientException("Connection pool is closed"));
+        }
+    }
+
+    private void connect(final NettyHttpClient.ConnectTask connectTask) {
+        final Channel channel = connectTask.connect();
+        channel.closeFuture().addListener(future -> onClosed(channel));
+    }
+
+    private void attach(final NettyHttpClient.ConnectTask connectTask, final Channel channel) {
+        channel.eventLoop().execute(() -> {
+            if (!channel.isActive()) {
+                // was closed by the server after it had been taken from the idle queue, closeFuture has already
+                // returned its permit so just try again
+                acquire(connectTask);
+                return;
+            }
+
+            final ChannelPipeline pipeline = channel.pipeline();
+            pipeline.remove(IDLE_STATE_HANDLER);
+            pipeline.remove(IDLE_CONNECTION_HANDLER);
+
+            connectTask.attach(channel);
+        });
+    }
+
+    private void onClosed(final Channel channel) {
+        final PendingAcquire pendingAcquire;
+
+        synchronized (lock) {
+            idleChannels.remove(channel);
+            openedConnections--;
+
+            if (isClosed) {
+                return;
+            }
+
+            pendingAcquire = pendingAcquires.pollFirst();
+            if (pendingAcquire == null) {
+                return;
+            }
+
+            openedConnections++;
+        }
+
+        pendingAcquire.timeout.cancel(false);
+        connect(pendingAcquire.connectTask);
+    }
+
+    private void onAcquireTimeout(final PendingAcquire pendingAcquire) {
+        synchronized (lock) {
+            if (!pendingAcquires.remove(pendingAcquire)) {
+                return;
+            }
+        }
+
+        pendingAcquire.connectTask.fail(new HttpConnectTimeoutException(
+                "Failed to acquire pooled connection within " + acquireTimeoutMs + " ms"));
+    }
+
+    private final class PendingAcquire {
+        private final NettyHttpClient.ConnectTask connectTask;
+        private final ScheduledFuture<?> timeout;
+
+        private PendingAcquire(final NettyHttpClient.ConnectTask connectTask) {
+            this.connectTask = connectTask;
+            this.timeout = eventLoopGroup.schedule(() -> onAcquireTimeout(this), acquireTimeoutMs,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class IdleConnectionHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            // nobody is waiting for a response on an idle connection
+            ReferenceCountUtil.release(msg);
+            ctx.close();
+        }
+
+        @Override
+        public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+            if (evt instanceof IdleStateEvent) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace(getClass().getSimpleName() + ".userEventTriggered evicting idle connection to " +
+                            ctx.channel().remoteAddress() + " in the channel " + ctx.channel().id() +
+                            " and in the thread " + Thread.currentThread());
+                }
+
+                ctx.close();
+                return;
+            }
+
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+            ctx.close();
+        }
+    }
+}
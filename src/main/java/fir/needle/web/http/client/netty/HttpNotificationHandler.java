@@ -23,23 +23,27 @@
  */
 package fir.needle.web.http.client.netty;
 
-import java.nio.charset.Charset;
-import java.util.List;
+import java.util.Iterator;
 import java.util.Map;
 
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.FlightEvent;
+import fir.needle.web.FlightRecorder;
 import fir.needle.web.http.client.HttpClientException;
 import fir.needle.web.http.client.HttpConnectTimeoutException;
 import fir.needle.web.http.client.HttpReadTimeoutException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.DefaultFullHttpRequest;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpObject;
-import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.ssl.SslHandshakeCompletionEvent;
 import io.netty.handler.timeout.ReadTimeoutException;
 
 class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
@@ -47,33 +51,41 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
     private final Logger logger;
     private final String host;
     private final int port;
+    private final HttpConnectionPool connectionPool;
+    private final NettyHttpClient.ConnectTask connectTask;
+    private final MonitoredResponseListener monitoredListener;
+    private final FlightRecorder recorder;
 
     private NettyResponseListener listener;
     private boolean isBodyStarted;
+    private boolean isBodyDiscarded;
     private NettyInputByteBuffer inputByteBuffer;
 
+    private long connectedNanos = NettyRequestTimings.NOT_RECORDED;
+    private long tlsHandshakeNanos = NettyRequestTimings.NOT_RECORDED;
+
     private boolean wasConnectionEstablished;
+    private boolean isKeepAlive;
     private Throwable error;
 
     HttpNotificationHandler(final NettyRequestHolder requestHolder, final Logger logger, final String host,
-            final int port) {
+            final int port, final HttpConnectionPool connectionPool, final NettyHttpClient.ConnectTask connectTask,
+            final EventLoopMonitor eventLoopMonitor, final FlightRecorder recorder) {
         this.requestHolder = requestHolder;
         this.logger = logger;
-        this.listener = requestHolder.listener();
         this.host = host;
         this.port = port;
+        this.connectionPool = connectionPool;
+        this.connectTask = connectTask;
+        this.monitoredListener = eventLoopMonitor != null ?
+                new MonitoredResponseListener(eventLoopMonitor, requestHolder, host, port) : null;
+        this.listener = currentListener();
+        this.recorder = recorder;
     }
 
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, final HttpObject msg) {
-        listener = requestHolder.listener();
-
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRead0 for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        listener = currentListener();
 
         if (requestHolder.isCanceled()) {
             ctx.close();
@@ -84,7 +96,7 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
             processHttpResponse(ctx, msg);
         }
 
-        if (msg instanceof HttpContent) {
+        if (msg instanceof HttpContent && !isBodyDiscarded) {
             processHttpContent(ctx, msg);
         }
 
@@ -97,54 +109,53 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     @Override
     public void channelRegistered(final ChannelHandlerContext ctx) throws Exception {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRegistered for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_REGISTERED, 0);
 
         super.channelRegistered(ctx);
     }
 
     @Override
     public void channelActive(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelActive for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_ACTIVE, 0);
 
         if (requestHolder.isCanceled()) {
             ctx.close();
             return;
         }
 
-        try {
-            listener.onBeforeRequestSend();
-        } catch (final Exception | AssertionError e) {
-
-            logger.error("Error while onBeforeRequestSend notification", e);
+        connectedNanos = System.nanoTime();
 
+        int requestsSent = 0;
+        do {
             try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
+                listener.onBeforeRequestSend();
+            } catch (final Exception | AssertionError e) {
+
+                logger.error("Error while onBeforeRequestSend notification", e);
+
+                try {
+                    listener.onListenerError(e);
+                } catch (final Exception | AssertionError er) {
+                    logger.error("Error while onListenerError notification", er);
+                }
             }
-        }
 
-        final HttpRequest crtHttpRequest = requestHolder.get();
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelActive sending request" +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread() +
-                            ":\n" + crtHttpRequest +
-                            "\n\n" + new String(((DefaultFullHttpRequest) crtHttpRequest).content().array()));
-        }
+            final NettyRequestTimings timings = listener.nextTimings();
+            timings.onConnected(connectTask.startedNanos, connectedNanos, connectTask.isConnectionReused);
 
-        ctx.channel().writeAndFlush(crtHttpRequest);
+            // HTTP/2 streams get the request object for the frame codec, HTTP/1.1 connections the cached wire form
+            final Object crtHttpRequest = ctx.channel() instanceof Http2StreamChannel ?
+                    requestHolder.get() : requestHolder.encoded();
+            if (crtHttpRequest instanceof StreamedRequestBody) {
+                ((StreamedRequestBody) crtHttpRequest).attach(ctx.pipeline());
+            }
+
+            ctx.channel().write(crtHttpRequest).addListener(timings);
+            requestsSent++;
+        } while (requestHolder.hasNextRequest()); // the rest of the pipelining window goes out in the same flush
+
+        ctx.channel().flush();
+        record(ctx, FlightEvent.REQUEST_SENT, requestsSent);
 
         wasConnectionEstablished = true;
 
@@ -166,23 +177,22 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
     }
 
     @Override
-    public void channelInactive(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelInactive for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
+    public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+        if (evt instanceof SslHandshakeCompletionEvent && ((SslHandshakeCompletionEvent) evt).isSuccess()) {
+            tlsHandshakeNanos = System.nanoTime();
         }
+
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) {
+        record(ctx, FlightEvent.CHANNEL_INACTIVE, 0);
     }
 
     @Override
     public void channelUnregistered(final ChannelHandlerContext ctx) throws Exception {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelUnregistered for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_UNREGISTERED, 0);
 
         if (wasConnectionEstablished) {
             if (error == null) {
@@ -216,12 +226,8 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     @Override
     public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) throws Exception {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".exceptionCaught for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " +
-                            Thread.currentThread(), cause);
+        if (recorder != null) {
+            recorder.recordError(ctx.channel(), cause);
         }
 
         error = cause;
@@ -229,19 +235,29 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
         ctx.close();
     }
 
+    private void record(final ChannelHandlerContext ctx, final FlightEvent event, final long value) {
+        if (recorder != null) {
+            recorder.record(event, ctx.channel(), value);
+        }
+    }
+
+    private NettyResponseListener currentListener() {
+        return monitoredListener != null ? monitoredListener.wrap(requestHolder.listener()) : requestHolder.listener();
+    }
+
     private void processHeaders(final HttpResponse response) {
         if (response.headers().isEmpty()) {
             return;
         }
 
-        final List<Map.Entry<String, String>> headers = response.headers().entries();
+        // walks the stored entries directly, entries() would copy them all into a new list of Strings
+        final Iterator<Map.Entry<CharSequence, CharSequence>> headers = response.headers().iteratorCharSequence();
 
-        for (int i = 0; i < headers.size(); i++) {
-            final Map.Entry<String, String> crtHeader = headers.get(i);
+        while (headers.hasNext()) {
+            final Map.Entry<CharSequence, CharSequence> crtHeader = headers.next();
 
-            if (logger.isTraceEnabled()) {
-                logger.trace(
-                        "Response has been received with header: " + crtHeader.getKey() + ": " + crtHeader.getValue());
+            if (!listener.isHeaderOfInterest(crtHeader.getKey())) {
+                continue;
             }
 
             try {
@@ -274,12 +290,10 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
 
     private void processHttpResponse(final ChannelHandlerContext ctx, final HttpObject msg) {
         final HttpResponse response = (HttpResponse) msg;
+        isBodyDiscarded = listener.isBodyDiscarded();
+        listener.timings().onResponseStarted(System.nanoTime(), tlsHandshakeNanos);
 
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    "Response has been received with status-line: " + response.protocolVersion() + " " +
-                            response.status());
-        }
+        record(ctx, FlightEvent.RESPONSE_STARTED, response.status().code());
 
         try {
             listener.onResponseStarted(response.status().code());
@@ -298,6 +312,8 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
             return;
         }
 
+        isKeepAlive = HttpUtil.isKeepAlive(response);
+
         processHeaders(response);
     }
 
@@ -324,11 +340,7 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
 
         final ByteBuf content = ((HttpContent) msg).content();
 
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    "Response has been received with body part:\n" + content.getCharSequence(0,
-                            content.readableBytes(), Charset.defaultCharset()));
-        }
+        record(ctx, FlightEvent.RESPONSE_CONTENT, content.readableBytes());
 
         try {
             listener.onBodyContent(getInputByteBuffer(content), 0, content.readableBytes());
@@ -348,6 +360,9 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
     }
 
     private void processLastHttpContent(final ChannelHandlerContext ctx) {
+        listener.timings().onResponseFinished(System.nanoTime());
+        record(ctx, FlightEvent.RESPONSE_FINISHED, 0);
+
         if (isBodyStarted) {
             try {
                 listener.onBodyFinished();
@@ -380,12 +395,40 @@ class HttpNotificationHandler extends SimpleChannelInboundHandler<HttpObject> {
         }
 
         if (requestHolder.isCanceled()) {
+            if (connectionPool != null && isKeepAlive && requestHolder.isFinished()) {
+                releaseConnection(ctx);
+                requestHolder.setCancelIsDone();
+                return;
+            }
+
             ctx.close();
             return;
         }
 
         isBodyStarted = false;
 
+        if (connectionPool != null && isKeepAlive && requestHolder.isPeriodic()) {
+            // nothing to send on this connection until the next tick, so let other polls use it meanwhile
+            final long nextRequestDelayMs = requestHolder.currentRequestDelayMs();
+            final EventLoop eventLoop = ctx.channel().eventLoop();
+
+            releaseConnection(ctx);
+            connectTask.runLater(eventLoop, nextRequestDelayMs);
+            return;
+        }
+
         ctx.fireChannelRead(true);
     }
+
+    private void releaseConnection(final ChannelHandlerContext ctx) {
+        wasConnectionEstablished = false;
+
+        try {
+            listener.onDisconnected();
+        } catch (final Exception | AssertionError e) {
+            logger.error("Error while onDisconnected notification", e);
+        }
+
+        connectionPool.release(ctx.channel());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,200 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.http.client.AbstractHttpClientException;
+
+// times the callbacks of whichever listener the request holder currently answers, one instance per handler
+final class MonitoredResponseListener implements NettyResponseListener {
+    private final EventLoopMonitor monitor;
+    private final NettyRequestHolder requestHolder;
+    private final String hostPort;
+
+    private NettyResponseListener delegate;
+
+    MonitoredResponseListener(final EventLoopMonitor monitor, final NettyRequestHolder requestHolder,
+            final String host, final int port) {
+
+        this.monitor = monitor;
+        this.requestHolder = requestHolder;
+        this.hostPort = host + ":" + port;
+    }
+
+    NettyResponseListener wrap(final NettyResponseListener delegate) {
+        this.delegate = delegate;
+        return this;
+    }
+
+    @Override
+    public void onConnected() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onConnected();
+        } finally {
+            onCallbackFinished("onConnected", startedNanos);
+        }
+    }
+
+    @Override
+    public void onBeforeRequestSend() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBeforeRequestSend();
+        } finally {
+            onCallbackFinished("onBeforeRequestSend", startedNanos);
+        }
+    }
+
+    @Override
+    public NettyRequestTimings nextTimings() {
+        return delegate.nextTimings();
+    }
+
+    @Override
+    public NettyRequestTimings timings() {
+        return delegate.timings();
+    }
+
+    @Override
+    public void onResponseStarted(final int code) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onResponseStarted(code);
+        } finally {
+            onCallbackFinished("onResponseStarted", startedNanos);
+        }
+    }
+
+    @Override
+    public boolean isHeaderOfInterest(final CharSequence name) {
+        return delegate.isHeaderOfInterest(name);
+    }
+
+    @Override
+    public boolean isBodyDiscarded() {
+        return delegate.isBodyDiscarded();
+    }
+
+    @Override
+    public void onHeader(final CharSequence key, final CharSequence value) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onHeader(key, value);
+        } finally {
+            onCallbackFinished("onHeader", startedNanos);
+        }
+    }
+
+    @Override
+    public void onBodyStarted() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBodyStarted();
+        } finally {
+            onCallbackFinished("onBodyStarted", startedNanos);
+        }
+    }
+
+    @Override
+    public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBodyContent(buffer, startIndex, length);
+        } finally {
+            onCallbackFinished("onBodyContent", startedNanos);
+        }
+    }
+
+    @Override
+    public void onBodyFinished() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBodyFinished();
+        } finally {
+            onCallbackFinished("onBodyFinished", startedNanos);
+        }
+    }
+
+    @Override
+    public void onResponseFinished() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onResponseFinished();
+        } finally {
+            onCallbackFinished("onResponseFinished", startedNanos);
+        }
+    }
+
+    @Override
+    public void onListenerError(final Throwable error) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onListenerError(error);
+        } finally {
+            onCallbackFinished("onListenerError", startedNanos);
+        }
+    }
+
+    @Override
+    public void onDisconnected() {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onDisconnected();
+        } finally {
+            onCallbackFinished("onDisconnected", startedNanos);
+        }
+    }
+
+    @Override
+    public void onDisconnectedByError(final AbstractHttpClientException exception) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onDisconnectedByError(exception);
+        } finally {
+            onCallbackFinished("onDisconnectedByError", startedNanos);
+        }
+    }
+
+    private void onCallbackFinished(final String callback, final long startedNanos) {
+        final long durationNanos = System.nanoTime() - startedNanos;
+
+        // the url is only built for the callbacks that are reported
+        if (durationNanos > monitor.slowCallbackThresholdNanos()) {
+            monitor.onSlowCallback(hostPort + requestHolder.relativeUrl(), callback, durationNanos);
+        }
+    }
+}
@@ -32,16 +32,14 @@ public class NettyDeleteRequest extends AbstractRequest<Delete> implements Delet
 
     public NettyDeleteRequest(final NettyPreparedDelete builder) {
         super(builder);
-        this.body = builder.body;
     }
 
     @Override
     public HttpRequest get() {
-        final DefaultFullHttpRequest result = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl);
+        final DefaultFullHttpRequest result
+                = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl, bodyContent());
         result.headers().set(headers);
 
-        result.content().writeBytes(body.buffer());
-
         return result;
     }
 }
\ No newline at end of file
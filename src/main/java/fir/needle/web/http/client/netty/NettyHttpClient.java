@@ -25,14 +25,20 @@ package fir.needle.web.http.client.netty;
 
 import java.io.File;
 import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import javax.net.ssl.SSLException;
 
@@ -42,21 +48,37 @@ import fir.needle.joint.lang.NoWaitFuture;
 import fir.needle.joint.lang.VoidResult;
 import fir.needle.joint.logging.JulLogger;
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.FlightRecorder;
+import fir.needle.web.NettyMetrics;
+import fir.needle.web.NettyTransport;
 import fir.needle.web.http.client.*;
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.http.HttpClientCodec;
-import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http2.Http2SecurityUtil;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.SupportedCipherSuiteFilter;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.concurrent.EventExecutor;
 
@@ -67,21 +89,38 @@ public final class NettyHttpClient implements HttpClient {
     private final String host;
     private final int port;
     private final SslContext sslContext;
+    private final SslContext http2SslContext;
 
+    private final ByteBufAllocator allocator;
+    private final boolean isDirectBody;
+    private final String acceptEncoding;
+    private final ContentDecoderFactory[] contentDecoders;
     private final int connectTimeoutMs;
     private final int readTimeoutMs;
     private final int reconnectTimeoutMs;
     final int reconnectAttemptsNumber;
+    final int pipeliningDepth;
 
     private final boolean isInternalEventLoopGroup;
+    private final SocketAddress remoteAddress;
+    private final Class<? extends Channel> channelClass;
+    private final EpollMode epollMode;
+    private final HttpConnectionPool connectionPool;
+    private final Http2ConnectionManager http2Connection;
 
-    private final List<Cancelable> scheduledTasks = new ArrayList<>();
-    private final List<Long> scheduleIds = new CopyOnWriteArrayList<>();
+    private final Map<Long, Cancelable> scheduledTasks = new HashMap<>();
     private final AtomicLong scheduleId = new AtomicLong();
+    private final PollScheduler pollScheduler;
 
     private final Map<ChannelOption<Boolean>, Boolean> booleanOptions;
     private final Map<ChannelOption<Integer>, Integer> integerOptions;
 
+    // per path, null unless enabled by the builder
+    private final ConcurrentMap<String, LatencyHistogram> latencyHistograms;
+    final NettyMetrics metrics;
+    private final EventLoopMonitor eventLoopMonitor;
+    private final FlightRecorder flightRecorder;
+
     private final Logger logger;
     private final Object lock = new Object();
 
@@ -94,23 +133,57 @@ public final class NettyHttpClient implements HttpClient {
         try {
             this.sslContext = builder.isSslEnabled ? SslContextBuilder.forClient()
                     .trustManager((File) null).build() : null;
+
+            this.http2SslContext = builder.isSslEnabled && builder.isHttp2Enabled ? SslContextBuilder.forClient()
+                    .trustManager((File) null)
+                    .ciphers(Http2SecurityUtil.CIPHERS, SupportedCipherSuiteFilter.INSTANCE)
+                    .applicationProtocolConfig(new ApplicationProtocolConfig(ApplicationProtocolConfig.Protocol.ALPN,
+                            ApplicationProtocolConfig.SelectorFailureBehavior.NO_ADVERTISE,
+                            ApplicationProtocolConfig.SelectedListenerFailureBehavior.ACCEPT,
+                            ApplicationProtocolNames.HTTP_2, ApplicationProtocolNames.HTTP_1_1))
+                    .build() : null;
         } catch (final SSLException e) {
             throw new UncheckedIOException(e);
         }
 
+        this.allocator = builder.allocator;
+        this.isDirectBody = builder.isDirectBodyEnabled;
+        this.latencyHistograms = builder.isLatencyHistogramsEnabled ? new ConcurrentHashMap<>() : null;
+        this.metrics = builder.metrics;
+        this.eventLoopMonitor = builder.eventLoopMonitor;
+        this.flightRecorder = builder.flightRecorder;
+        this.acceptEncoding = builder.acceptEncoding;
+        this.contentDecoders = builder.contentDecoders.toArray(new ContentDecoderFactory[0]);
         this.connectTimeoutMs = builder.connectTimeoutMs;
         this.readTimeoutMs = builder.readTimeoutMs;
         this.reconnectTimeoutMs = builder.reconnectTimeoutMs;
         this.reconnectAttemptsNumber = builder.numberOfReconnectAttempts;
+        // every request gets its own stream, so there is nothing to pipeline
+        this.pipeliningDepth = builder.isHttp2Enabled ? PreparedRequestsChain.NO_PIPELINING : builder.pipeliningDepth;
 
         this.isInternalEventLoopGroup = builder.isInternalEventLoopGroup;
         this.eventLoopGroup = builder.eventLoopGroup;
+        this.remoteAddress = builder.socketPath != null ? new DomainSocketAddress(builder.socketPath.toFile()) :
+                InetSocketAddress.createUnresolved(host, port);
+        this.channelClass = builder.socketPath != null ? builder.transport.domainSocketChannelClass() :
+                builder.transport.socketChannelClass();
+        this.epollMode = builder.transport == NettyTransport.EPOLL ? builder.epollMode : null;
 
         this.booleanOptions = Collections.unmodifiableMap(builder.booleanOptions);
         this.integerOptions = Collections.unmodifiableMap(builder.integerOptions);
 
         this.logger = builder.logger;
 
+        this.connectionPool = builder.isConnectionPoolEnabled ? new HttpConnectionPool(eventLoopGroup,
+                builder.maxConnectionsPerHost, builder.maxIdleConnections, builder.idleConnectionTimeoutMs,
+                builder.maxPendingAcquires, builder.acquireTimeoutMs, logger) : null;
+
+        this.pollScheduler = builder.timerTickMs > 0 ?
+                new PollScheduler(builder.timerTickMs, builder.ticksPerWheel) : new PollScheduler();
+
+        this.http2Connection = builder.isHttp2Enabled ?
+                new Http2ConnectionManager(newBootstrap(), http2SslContext, host, port, metrics, logger) : null;
+
         if (logger.isInfoEnabled()) {
             logger.info("Client for " + getRequestUrl(null) + " was built!");
         }
@@ -135,7 +208,7 @@ public final class NettyHttpClient implements HttpClient {
         createPreparedGet(path, query)
                 .withHeader("host", host)
                 .withHeader("connection", "keep-alive")
-                .withHeader("accept-encoding", "gzip")
+                .withHeader("accept-encoding", acceptEncoding)
                 .send(listener);
     }
 
@@ -153,10 +226,28 @@ public final class NettyHttpClient implements HttpClient {
         return createPreparedGet(path, query)
                 .withHeader("host", host)
                 .withHeader("connection", "keep-alive")
-                .withHeader("accept-encoding", "gzip")
+                .withHeader("accept-encoding", acceptEncoding)
                 .schedule(repeatPeriodMs, listener);
     }
 
+    @Override
+    public Cancelable scheduleGetAtFixedRate(final String path, final int periodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledGet> listener) {
+
+        return scheduleGetAtFixedRate(path, null, periodMs, overrunPolicy, listener);
+    }
+
+    @Override
+    public Cancelable scheduleGetAtFixedRate(final String path, final String query, final int periodMs,
+            final OverrunPolicy overrunPolicy, final HttpResponseListener<ScheduledGet> listener) {
+
+        return createPreparedGet(path, query)
+                .withHeader("host", host)
+                .withHeader("connection", "keep-alive")
+                .withHeader("accept-encoding", acceptEncoding)
+                .scheduleAtFixedRate(periodMs, overrunPolicy, listener);
+    }
+
     @Override
     public PreparedGet prepareGet(final String path) {
         return prepareGet(path, null);
@@ -167,6 +258,16 @@ public final class NettyHttpClient implements HttpClient {
         return createPreparedGet(path, query);
     }
 
+    @Override
+    public PreparedHead prepareHead(final String path) {
+        return prepareHead(path, null);
+    }
+
+    @Override
+    public PreparedHead prepareHead(final String path, final String query) {
+        return createPreparedHead(path, query);
+    }
+
     @Override
     public PreparedPost preparePost(final String path) {
         return preparePost(path, null);
@@ -228,7 +329,7 @@ public final class NettyHttpClient implements HttpClient {
             }
 
             isClosed = true;
-            copy = new ArrayList<>(scheduledTasks);
+            copy = new ArrayList<>(scheduledTasks.values());
         }
 
         for (final Cancelable scheduledRequest : copy) {
@@ -239,6 +340,16 @@ public final class NettyHttpClient implements HttpClient {
             }
         }
 
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+
+        if (http2Connection != null) {
+            http2Connection.close();
+        }
+
+        pollScheduler.stop(logger);
+
         io.netty.util.concurrent.Future<?> eventLoopCloseFuture = null;
         if (isInternalEventLoopGroup) {
             eventLoopCloseFuture = eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
@@ -283,6 +394,45 @@ public final class NettyHttpClient implements HttpClient {
         };
     }
 
+    public LatencyHistogram latencyHistogram(final String path) {
+        return latencyHistograms == null ? null : latencyHistograms.get(path);
+    }
+
+    public Map<String, LatencyHistogram> latencyHistograms() {
+        return latencyHistograms == null ? Collections.emptyMap() : Collections.unmodifiableMap(latencyHistograms);
+    }
+
+    void recordLatency(final String path, final RequestTimings timings) {
+        if (latencyHistograms == null) {
+            return;
+        }
+
+        final long totalNanos = timings.totalNanos();
+        if (totalNanos == RequestTimings.NOT_RECORDED) {
+            return;
+        }
+
+        LatencyHistogram histogram = latencyHistograms.get(path);
+        if (histogram == null) {
+            histogram = latencyHistograms.computeIfAbsent(path, p -> new LatencyHistogram());
+        }
+
+        histogram.record(totalNanos);
+    }
+
+    int port() {
+        return port;
+    }
+
+    boolean isHttp2() {
+        return http2Connection != null;
+    }
+
+    ByteBuf newBodyBuffer(final int capacity) {
+        // a body lives as long as its request and goes out as a retained duplicate on every send
+        return isDirectBody ? allocator.directBuffer(capacity) : allocator.heapBuffer(capacity);
+    }
+
     NettyPreparedGet createPreparedGet(final String path, final String query) {
         return new NettyPreparedGet()
                 .withLogger(logger)
@@ -294,6 +444,17 @@ public final class NettyHttpClient implements HttpClient {
                 .withQuery(query);
     }
 
+    NettyPreparedHead createPreparedHead(final String path, final String query) {
+        return new NettyPreparedHead()
+                .withLogger(logger)
+                .withClient(this)
+                .withHost(host)
+                .withHttpVersion(HttpVersion.HTTP_1_1)
+                .withHttpMethod(HttpMethod.HEAD)
+                .withPath(path)
+                .withQuery(query);
+    }
+
     NettyPreparedPost createPreparedPost(final String path, final String query) {
         return new NettyPreparedPost()
                 .withLogger(logger)
@@ -350,45 +511,110 @@ public final class NettyHttpClient implements HttpClient {
                                 " by the thread " + Thread.currentThread());
             }
 
-            eventLoopGroup.execute(new ConnectTask(requestsChain));
-            scheduledTasks.add(requestsChain);
+            requestsChain.client = this;
+            requestsChain.scheduledId = scheduleId.incrementAndGet();
+
+            eventLoopGroup.execute(new ConnectTask(requestsChain, connectionPool));
+            scheduledTasks.put(requestsChain.scheduledId, requestsChain);
         }
     }
 
+    public List<Cancelable> scheduleGets(final Collection<String> paths, final int repeatPeriodMs,
+            final Function<String, HttpResponseListener<ScheduledGet>> listenerFactory) {
+
+        final List<AbstractScheduledRequest> requests = new ArrayList<>(paths.size());
+
+        for (final String crtPath : paths) {
+            final NettyPreparedGet preparedGet = createPreparedGet(crtPath, null)
+                    .withHeader("host", host)
+                    .withHeader("connection", "keep-alive")
+                    .withHeader("accept-encoding", acceptEncoding)
+                    .withRepeatPeriodMs(repeatPeriodMs);
+
+            preparedGet.listener = listenerFactory.apply(crtPath);
+            requests.add(new NettyScheduledGet(preparedGet));
+        }
+
+        synchronized (lock) {
+            if (isClosed) {
+                throw new IllegalStateException("Is closed");
+            }
+
+            // spread the first requests over one period, otherwise every poll would hit the server at once
+            for (int i = 0; i < requests.size(); i++) {
+                startScheduledRequest(requests.get(i), staggerMs(i, repeatPeriodMs, requests.size()));
+            }
+        }
+
+        return new ArrayList<>(requests);
+    }
+
+    // the offsets are spread evenly over the period, with more requests than milliseconds several share a millisecond
+    static long staggerMs(final int index, final int repeatPeriodMs, final int numberOfRequests) {
+        return index * (long) repeatPeriodMs / numberOfRequests;
+    }
+
     void sendScheduledRequest(final AbstractScheduledRequest request) {
         if (logger.isTraceEnabled()) {
             logger.trace(getClass().getSimpleName() + ".scheduleGet has started for " + request.relativeUrl() +
                     " in the thread " + Thread.currentThread());
         }
 
-        final long crtScheduledId = scheduleId.incrementAndGet();
-
         synchronized (lock) {
             if (isClosed) {
                 throw new IllegalStateException("Is closed");
             }
 
-            if (logger.isTraceEnabled()) {
-                logger.trace("Trying to initiate connect to " + request.relativeUrl() + " by the thread " +
-                        Thread.currentThread());
-            }
+            startScheduledRequest(request, 0);
+        }
+    }
+
+    void deregister(final long scheduledId) {
+        final Cancelable removedTask;
+
+        synchronized (lock) {
+            removedTask = scheduledTasks.remove(scheduledId);
+        }
+
+        if (metrics != null && removedTask instanceof AbstractScheduledRequest) {
+            metrics.onTaskUnscheduled();
+        }
+    }
+
+    private void startScheduledRequest(final AbstractScheduledRequest request, final long staggerMs) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Trying to initiate connect to " + request.relativeUrl() + " by the thread " +
+                    Thread.currentThread());
+        }
 
-            request.scheduledId = crtScheduledId;
-            eventLoopGroup.execute(new ConnectTask(request));
+        request.scheduledId = scheduleId.incrementAndGet();
+        scheduledTasks.put(request.scheduledId, request);
 
-            scheduledTasks.add(request);
-            scheduleIds.add(crtScheduledId);
+        if (metrics != null) {
+            metrics.onTaskScheduled();
         }
+
+        pollScheduler.schedule(eventLoopGroup.next(), new ConnectTask(request, connectionPool),
+                request.initialDelayMs(staggerMs));
     }
 
-    void cancelScheduledRequest(final AbstractScheduledRequest request) {
-        synchronized (lock) {
-            if (!scheduleIds.remove(request.scheduledId)) {
-                return;
-            }
+    private Bootstrap newBootstrap() {
+        final Bootstrap bootstrap = new Bootstrap()
+                .channel(channelClass)
+                .group(eventLoopGroup)
+                .remoteAddress(remoteAddress);
 
-            scheduledTasks.remove(request);
+        bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
+        bootstrap.option(ChannelOption.ALLOCATOR, allocator);
+
+        if (epollMode != null) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, epollMode);
         }
+
+        booleanOptions.forEach(bootstrap::option);
+        integerOptions.forEach(bootstrap::option);
+
+        return bootstrap;
     }
 
     private String getRequestUrl(final String relativeUrl) {
@@ -402,22 +628,50 @@ public final class NettyHttpClient implements HttpClient {
     }
 
     public static class NettyHttpClientBuilder {
+        private static final int DEFAULT_HTTP_PORT = 80;
+        private static final int DEFAULT_HTTPS_PORT = 443;
+
         private boolean isInternalEventLoopGroup;
         private EventLoopGroup eventLoopGroup;
 
         private int numberOfWorkerThreads = 1;
+        private NettyTransport transport = NettyTransport.NIO;
+        private EpollMode epollMode;
 
         private String host;
         private int port;
+        private Path socketPath;
         private boolean isSslEnabled;
+        private boolean isHttp2Enabled;
+        private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+        private boolean isDirectBodyEnabled;
+        private boolean isLatencyHistogramsEnabled;
+        private NettyMetrics metrics;
+        private EventLoopMonitor eventLoopMonitor;
+        private FlightRecorder flightRecorder;
+        private String acceptEncoding = ContentDecoderFactory.GZIP.encoding();
+        private final List<ContentDecoderFactory> contentDecoders = new ArrayList<>();
 
         private int connectTimeoutMs = 3000;
         private int readTimeoutMs = 5000;
         private int reconnectTimeoutMs = 15000;
         private int numberOfReconnectAttempts = 3;
+        private int pipeliningDepth = PreparedRequestsChain.NO_PIPELINING;
+
+        private boolean isConnectionPoolEnabled;
+        private int maxConnectionsPerHost = 8;
+        private int maxIdleConnections = 8;
+        private int idleConnectionTimeoutMs = 60000;
+        private int maxPendingAcquires = 1024;
+        private int acquireTimeoutMs = 5000;
+
+        private int timerTickMs;
+        private int ticksPerWheel;
 
         private final Map<ChannelOption<Boolean>, Boolean> booleanOptions = new HashMap<>();
         private final Map<ChannelOption<Integer>, Integer> integerOptions = new HashMap<>();
+        private final Map<ChannelOption<Boolean>, Boolean> epollBooleanOptions = new HashMap<>();
+        private final Map<ChannelOption<Integer>, Integer> epollIntegerOptions = new HashMap<>();
 
         private Logger logger;
 
@@ -435,11 +689,108 @@ public final class NettyHttpClient implements HttpClient {
             return this;
         }
 
+        public NettyHttpClientBuilder withTransport(final NettyTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withNativeTransport() {
+            transport = NettyTransport.nativeOrNio();
+            return this;
+        }
+
+        public NettyHttpClientBuilder withTcpQuickAck() {
+            epollBooleanOptions.put(EpollChannelOption.TCP_QUICKACK, true);
+            return this;
+        }
+
+        public NettyHttpClientBuilder withTcpFastOpenConnect() {
+            epollBooleanOptions.put(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+            return this;
+        }
+
+        public NettyHttpClientBuilder withBusyPoll(final int busyPollMicros) {
+            epollIntegerOptions.put(EpollChannelOption.SO_BUSY_POLL, busyPollMicros);
+            return this;
+        }
+
+        public NettyHttpClientBuilder withEpollMode(final EpollMode epollMode) {
+            this.epollMode = epollMode;
+            return this;
+        }
+
         public NettyHttpClientBuilder withSsl() {
             isSslEnabled = true;
             return this;
         }
 
+        public NettyHttpClientBuilder withHttp2() {
+            isHttp2Enabled = true;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withAllocator(final ByteBufAllocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withDirectBodies() {
+            isDirectBodyEnabled = true;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withMetrics(final NettyMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        // every listener callback is timed and the ones over the threshold of the monitor are reported to it
+        public NettyHttpClientBuilder withEventLoopMonitor(final EventLoopMonitor eventLoopMonitor) {
+            this.eventLoopMonitor = eventLoopMonitor;
+            return this;
+        }
+
+        // connection, request and response events of every channel go to the recorder instead of the trace log
+        public NettyHttpClientBuilder withFlightRecorder(final FlightRecorder flightRecorder) {
+            this.flightRecorder = flightRecorder;
+            return this;
+        }
+
+        // total time of every finished response aggregated by request path, see latencyHistogram(path)
+        public NettyHttpClientBuilder withLatencyHistograms() {
+            isLatencyHistogramsEnabled = true;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withAcceptEncoding(final ContentDecoderFactory... decoders) {
+            if (decoders.length == 0) {
+                throw new IllegalArgumentException("At least one encoding must be accepted");
+            }
+
+            final StringBuilder encodings = new StringBuilder();
+            for (int i = 0; i < decoders.length; i++) {
+                if (i > 0) {
+                    encodings.append(", ");
+                }
+
+                encodings.append(decoders[i].encoding());
+                contentDecoders.add(decoders[i]);
+            }
+
+            acceptEncoding = encodings.toString();
+            return this;
+        }
+
+        public NettyHttpClientBuilder withIdentityEncoding() {
+            acceptEncoding = HttpHeaderValues.IDENTITY.toString();
+            return this;
+        }
+
+        public NettyHttpClientBuilder withContentDecoder(final ContentDecoderFactory decoder) {
+            contentDecoders.add(decoder);
+            return this;
+        }
+
         public NettyHttpClientBuilder withConnectTimeout(final int connectTimeoutMs) {
             this.connectTimeoutMs = connectTimeoutMs;
             return this;
@@ -465,6 +816,56 @@ public final class NettyHttpClient implements HttpClient {
             return this;
         }
 
+        public NettyHttpClientBuilder withPipelining(final int pipeliningDepth) {
+            if (pipeliningDepth < PreparedRequestsChain.NO_PIPELINING) {
+                throw new IllegalArgumentException("Pipelining depth must be positive: " + pipeliningDepth);
+            }
+
+            this.pipeliningDepth = pipeliningDepth;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withConnectionPool() {
+            isConnectionPoolEnabled = true;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withMaxConnectionsPerHost(final int maxConnectionsPerHost) {
+            this.maxConnectionsPerHost = maxConnectionsPerHost;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withMaxIdleConnections(final int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withIdleConnectionTimeout(final int idleConnectionTimeoutMs) {
+            this.idleConnectionTimeoutMs = idleConnectionTimeoutMs;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withMaxPendingAcquires(final int maxPendingAcquires) {
+            this.maxPendingAcquires = maxPendingAcquires;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withAcquireTimeout(final int acquireTimeoutMs) {
+            this.acquireTimeoutMs = acquireTimeoutMs;
+            return this;
+        }
+
+        public NettyHttpClientBuilder withTimingWheel(final int timerTickMs, final int ticksPerWheel) {
+            if (timerTickMs <= 0 || ticksPerWheel <= 0) {
+                throw new IllegalArgumentException("Timer tick and wheel size must be positive: " + timerTickMs +
+                        ", " + ticksPerWheel);
+            }
+
+            this.timerTickMs = timerTickMs;
+            this.ticksPerWheel = ticksPerWheel;
+            return this;
+        }
+
         public NettyHttpClientBuilder withOption(final ChannelOption<Boolean> option, final Boolean value) {
             booleanOptions.put(option, value);
             return this;
@@ -490,45 +891,67 @@ public final class NettyHttpClient implements HttpClient {
             return this;
         }
 
+        public NettyHttpClient build(final Path socketPath) {
+            return build(socketPath, "localhost", isSslEnabled ? DEFAULT_HTTPS_PORT : DEFAULT_HTTP_PORT);
+        }
+
+        public NettyHttpClient build(final Path socketPath, final String host, final int port) {
+            this.socketPath = socketPath;
+            return build(host, port);
+        }
+
         public NettyHttpClient build(final String host, final int port) {
             this.host = host;
             this.port = port;
 
+            if (socketPath != null && eventLoopGroup == null) {
+                transport = NettyTransport.forDomainSocket();
+            }
+
             if (eventLoopGroup == null) {
                 isInternalEventLoopGroup = true;
-                eventLoopGroup = new NioEventLoopGroup(numberOfWorkerThreads);
+                eventLoopGroup = transport.newEventLoopGroup(numberOfWorkerThreads);
             }
 
             if (logger == null) {
                 logger = new JulLogger(java.util.logging.Logger.getLogger(NettyHttpClient.class.getSimpleName()));
             }
 
+            transport = NettyTransport.of(eventLoopGroup);
+
+            if (transport == NettyTransport.EPOLL) {
+                booleanOptions.putAll(epollBooleanOptions);
+                integerOptions.putAll(epollIntegerOptions);
+            } else if (!epollBooleanOptions.isEmpty() || !epollIntegerOptions.isEmpty() || epollMode != null) {
+                if (logger.isInfoEnabled()) {
+                    logger.info("Epoll specific options are ignored for the " + transport + " transport");
+                }
+            }
+
             return new NettyHttpClient(this);
         }
     }
 
-    private class ConnectTask implements Runnable {
+    class ConnectTask implements Runnable {
         final NettyRequestHolder requestHolder;
 
+        long startedNanos = RequestTimings.NOT_RECORDED;
+        boolean isConnectionReused;
+
+        private final HttpConnectionPool connectionPool;
         private final Bootstrap bootstrap;
 
-        ConnectTask(final NettyRequestHolder requestHolder) {
+        ConnectTask(final NettyRequestHolder requestHolder, final HttpConnectionPool connectionPool) {
             this.requestHolder = requestHolder;
+            this.connectionPool = connectionPool;
 
-            bootstrap = new Bootstrap()
-                    .channel(NioSocketChannel.class)
-                    .group(eventLoopGroup)
-                    .remoteAddress(host, port)
-                    .handler(new ChannelInitializer<SocketChannel>() {
+            bootstrap = newBootstrap()
+                    .handler(new ChannelInitializer<Channel>() {
                         @Override
-                        protected void initChannel(final SocketChannel ch) {
+                        protected void initChannel(final Channel ch) {
                             fillPipeline(ch);
                         }
                     });
-
-            bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs);
-            booleanOptions.forEach(bootstrap::option);
-            integerOptions.forEach(bootstrap::option);
         }
 
         @Override
@@ -546,27 +969,169 @@ public final class NettyHttpClient implements HttpClient {
                 return;
             }
 
+            startedNanos = System.nanoTime();
+            isConnectionReused = false;
+
+            if (http2Connection != null && !http2Connection.isHttp1Fallback()) {
+                http2Connection.openStream(this);
+                return;
+            }
+
+            if (connectionPool != null) {
+                connectionPool.acquire(this);
+                return;
+            }
+
             requestHolder.connect(bootstrap);
         }
 
-        void fillPipeline(final SocketChannel channel) {
+        Channel connect() {
+            requestHolder.connect(bootstrap);
+            return requestHolder.channel();
+        }
+
+        void attach(final Channel channel) {
+            if (logger.isTraceEnabled()) {
+                logger.trace(getClass().getSimpleName() + ".attach reusing pooled connection to " +
+                        channel.remoteAddress() + " for " + requestHolder.relativeUrl() + " in the channel " +
+                        channel.id() + " and in the thread " + Thread.currentThread());
+            }
+
+            isConnectionReused = true;
+            fillRequestHandlers(channel.pipeline());
+            requestHolder.attach(channel);
+
+            // the connection is already active, so replay channelActive starting from the freshly added handlers
+            channel.pipeline().context(HttpConnectionPool.READ_TIMEOUT_HANDLER).fireChannelActive();
+        }
+
+        void openStream(final Channel connection) {
+            final Http2StreamChannelBootstrap streamBootstrap = new Http2StreamChannelBootstrap(connection)
+                    .handler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(final Channel stream) {
+                            fillStreamPipeline(stream.pipeline());
+
+                            // must be attached before the stream becomes active and the request is sent
+                            requestHolder.attach(stream);
+                        }
+                    });
+
+            final io.netty.util.concurrent.Future<Http2StreamChannel> streamFuture = streamBootstrap.open();
+            streamFuture.addListener(future -> {
+                if (!future.isSuccess()) {
+                    retryLater(new HttpClientException("Failed to open HTTP/2 stream to " + host + ":" + port,
+                            future.cause()));
+                }
+            });
+        }
+
+        void retryLater(final AbstractHttpClientException error) {
+            if (metrics != null) {
+                metrics.onHttpReconnect();
+            }
+
+            try {
+                requestHolder.listener().onDisconnectedByError(error);
+            } catch (final Exception | AssertionError e) {
+                logger.error("Error while onDisconnectedByError notification", e);
+            }
+
+            if (requestHolder.isCanceled()) {
+                requestHolder.setCancelIsDone();
+                return;
+            }
+
+            pollScheduler.schedule(eventLoopGroup.next(), this, reconnectTimeoutMs);
+        }
+
+        void runLater(final EventExecutor executor, final long delayMs) {
+            pollScheduler.schedule(executor, this, delayMs);
+        }
+
+        void fail(final AbstractHttpClientException error) {
+            if (requestHolder.isPeriodic()) {
+                // a poll outlives a busy or failing pool, it just tries again later
+                retryLater(error);
+                return;
+            }
+
+            requestHolder.cancel();
+            requestHolder.setCancelIsDone();
+
+            try {
+                requestHolder.listener().onDisconnectedByError(error);
+            } catch (final Exception | AssertionError e) {
+                logger.error("Error while onDisconnectedByError notification", e);
+            }
+        }
+
+        void fillPipeline(final Channel channel) {
             final ChannelPipeline pipeline = channel.pipeline();
 
+            if (metrics != null) {
+                pipeline.addLast(metrics.channelHandler());
+            }
+
             if (sslContext != null) {
                 pipeline.addLast(sslContext.newHandler(channel.alloc(), host, port));
             }
 
-            pipeline.addLast(new HttpClientCodec());
+            pipeline.addLast(new TemplateClientCodec());
+
+            pipeline.addLast(HttpConnectionPool.DECOMPRESSOR_HANDLER, new ResponseDecompressor(contentDecoders));
+
+            fillRequestHandlers(pipeline);
+        }
+
+        private void fillStreamPipeline(final ChannelPipeline pipeline) {
+            pipeline.addLast(new Http2StreamFrameToHttpObjectCodec(false));
+            pipeline.addLast(HttpConnectionPool.DECOMPRESSOR_HANDLER, new ResponseDecompressor(contentDecoders));
+            pipeline.addBefore(HttpConnectionPool.DECOMPRESSOR_HANDLER, HttpConnectionPool.BODY_DISCARD_HANDLER,
+                    new BodyDiscardHandler(requestHolder, (ResponseDecompressor) pipeline.last()));
+
+            // no SendRequestHandler here: a stream carries exactly one exchange and is closed by the server after the
+            // response, so the next request of the chain or the next poll goes through ReconnectHandler's repeat path
+            pipeline.addLast(HttpConnectionPool.READ_TIMEOUT_HANDLER,
+                    new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS));
 
-            pipeline.addLast(new HttpContentDecompressor());
+            pipeline.addLast(HttpConnectionPool.NOTIFICATION_HANDLER,
+                    new HttpNotificationHandler(requestHolder, logger, host, port, null, this,
+                            eventLoopMonitor, flightRecorder));
 
-            pipeline.addLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS));
+            pipeline.addLast(ResponseEndSink.INSTANCE);
+
+            pipeline.addLast(HttpConnectionPool.RECONNECT_HANDLER,
+                    new ReconnectHandler(this, requestHolder, reconnectTimeoutMs, pollScheduler, metrics, logger));
+        }
 
-            pipeline.addLast(new HttpNotificationHandler(requestHolder, logger, host, port));
+        private void fillRequestHandlers(final ChannelPipeline pipeline) {
+            pipeline.addBefore(HttpConnectionPool.DECOMPRESSOR_HANDLER, HttpConnectionPool.BODY_DISCARD_HANDLER,
+                    new BodyDiscardHandler(requestHolder,
+                            (ResponseDecompressor) pipeline.get(HttpConnectionPool.DECOMPRESSOR_HANDLER)));
 
-            pipeline.addLast(new SendRequestHandler(requestHolder, logger));
+            pipeline.addLast(HttpConnectionPool.READ_TIMEOUT_HANDLER,
+                    new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS));
 
-            pipeline.addLast(new ReconnectHandler(this, requestHolder, reconnectTimeoutMs, logger));
+            pipeline.addLast(HttpConnectionPool.NOTIFICATION_HANDLER,
+                    new HttpNotificationHandler(requestHolder, logger, host, port, connectionPool, this,
+                            eventLoopMonitor, flightRecorder));
+
+            pipeline.addLast(HttpConnectionPool.SEND_REQUEST_HANDLER,
+                    new SendRequestHandler(requestHolder, pollScheduler, flightRecorder, logger));
+
+            pipeline.addLast(HttpConnectionPool.RECONNECT_HANDLER,
+                    new ReconnectHandler(this, requestHolder, reconnectTimeoutMs, pollScheduler, metrics, logger));
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ResponseEndSink extends SimpleChannelInboundHandler<Boolean> {
+        private static final ResponseEndSink INSTANCE = new ResponseEndSink();
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final Boolean lastResponseChunkReceived) {
+            // takes the place of SendRequestHandler on a stream, otherwise the marker would be discarded by the tail
         }
     }
 }
\ No newline at end of file
@@ -30,4 +30,7 @@ import java.util.function.Supplier;
 interface NettyHttpRequest extends fir.needle.web.http.client.HttpRequest, Supplier<HttpRequest> {
 
     String relativeUrl();
+
+    // HTTP/1.1 wire form of get(), reused between sends until the request is updated
+    Object encoded();
 }
\ No newline at end of file
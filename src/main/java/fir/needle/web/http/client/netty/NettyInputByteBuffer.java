@@ -23,6 +23,10 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
 import fir.needle.joint.io.ByteArea;
 import io.netty.buffer.ByteBuf;
 
@@ -59,13 +63,56 @@ public class NettyInputByteBuffer implements ByteArea {
         return buffer;
     }
 
+    // all indices are relative to the reader index of the wrapped buffer, none of the accessors move it
     @Override
     public byte getByte(final long index) {
-        buffer.readerIndex((int) index);
-        return buffer.readByte();
+        return buffer.getByte(absoluteIndex(index));
+    }
+
+    public short getShort(final long index) {
+        return buffer.getShort(absoluteIndex(index));
+    }
+
+    public int getInt(final long index) {
+        return buffer.getInt(absoluteIndex(index));
+    }
+
+    public long getLong(final long index) {
+        return buffer.getLong(absoluteIndex(index));
+    }
+
+    public void getBytes(final long index, final byte[] dst, final int dstIndex, final int length) {
+        buffer.getBytes(absoluteIndex(index), dst, dstIndex, length);
+    }
+
+    public void getBytes(final long index, final ByteBuffer dst) {
+        buffer.getBytes(absoluteIndex(index), dst);
+    }
+
+    public int getBytes(final long index, final FileChannel out, final long position, final int length)
+            throws IOException {
+
+        return buffer.getBytes(absoluteIndex(index), out, position, length);
+    }
+
+    public ByteBuffer nioBuffer(final long index, final int length) {
+        return buffer.nioBuffer(absoluteIndex(index), length).asReadOnlyBuffer();
+    }
+
+    public long indexOf(final long fromIndex, final long toIndex, final byte value) {
+        final int found = buffer.indexOf(absoluteIndex(fromIndex), absoluteIndex(toIndex), value);
+        return found < 0 ? -1 : found - buffer.readerIndex();
+    }
+
+    public int length() {
+        return buffer.readableBytes();
     }
 
     public void setBuffer(final ByteBuf buffer) {
         this.buffer = buffer;
     }
+
+    private int absoluteIndex(final long index) {
+        return buffer.readerIndex() + (int) index;
+    }
 }
\ No newline at end of file
@@ -23,11 +23,19 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.nio.ByteBuffer;
+
 import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.io.ByteArea;
+import fir.needle.joint.io.CharArea;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+public class NettyOutputByteBuffer implements ByteAppendable, ByteArea {
+    private static final int ONE_BYTE_LIMIT = 0x80;
+    private static final int TWO_BYTES_LIMIT = 0x800;
+    private static final int UTF8_MAX_BYTES_PER_CHAR = 3;
 
-public class NettyOutputByteBuffer implements ByteAppendable {
     private ByteBuf buffer;
 
     public NettyOutputByteBuffer(final ByteBuf buffer) {
@@ -41,15 +49,95 @@ public class NettyOutputByteBuffer implements ByteAppendable {
 
     @Override
     public void appendArea(final ByteArea area, final long startIndex, final long length) {
+        if (area instanceof NettyInputByteBuffer) {
+            final ByteBuf source = ((NettyInputByteBuffer) area).buffer();
+            buffer.writeBytes(source, source.readerIndex() + (int) startIndex, (int) length);
+            return;
+        }
+
         if (area instanceof NettyOutputByteBuffer) {
-            final NettyOutputByteBuffer nettyArea = (NettyOutputByteBuffer) area;
-            buffer.writeBytes(nettyArea.buffer());
+            final ByteBuf source = ((NettyOutputByteBuffer) area).buffer();
+            buffer.writeBytes(source, source.readerIndex() + (int) startIndex, (int) length);
             return;
         }
 
-        for (long i = startIndex; i < length; i++) {
-            appendByte(area.getByte(i));
+        buffer.ensureWritable((int) length);
+
+        int writerIndex = buffer.writerIndex();
+        for (long i = startIndex; i < startIndex + length; i++) {
+            buffer.setByte(writerIndex++, area.getByte(i));
+        }
+
+        buffer.writerIndex(writerIndex);
+    }
+
+    public void appendBytes(final byte[] source, final int offset, final int length) {
+        buffer.writeBytes(source, offset, length);
+    }
+
+    public void appendBytes(final ByteBuffer source) {
+        buffer.writeBytes(source);
+    }
+
+    public void appendAscii(final CharSequence source) {
+        ByteBufUtil.writeAscii(buffer, source);
+    }
+
+    public void appendUtf8(final CharSequence source) {
+        ByteBufUtil.writeUtf8(buffer, source);
+    }
+
+    public void appendAscii(final CharArea source, final long startIndex, final long length) {
+        buffer.ensureWritable((int) length);
+
+        int writerIndex = buffer.writerIndex();
+        for (long i = startIndex; i < startIndex + length; i++) {
+            buffer.setByte(writerIndex++, source.getChar(i));
+        }
+
+        buffer.writerIndex(writerIndex);
+    }
+
+    public void appendUtf8(final CharArea source, final long startIndex, final long length) {
+        buffer.ensureWritable((int) length * UTF8_MAX_BYTES_PER_CHAR);
+
+        int writerIndex = buffer.writerIndex();
+        for (long i = startIndex; i < startIndex + length; i++) {
+            final char c = source.getChar(i);
+
+            if (c < ONE_BYTE_LIMIT) {
+                buffer.setByte(writerIndex++, c);
+            } else if (c < TWO_BYTES_LIMIT) {
+                buffer.setByte(writerIndex++, 0xC0 | (c >> 6));
+                buffer.setByte(writerIndex++, 0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < startIndex + length &&
+                    Character.isLowSurrogate(source.getChar(i + 1))) {
+
+                final int codePoint = Character.toCodePoint(c, source.getChar(++i));
+                buffer.setByte(writerIndex++, 0xF0 | (codePoint >> 18));
+                buffer.setByte(writerIndex++, 0x80 | ((codePoint >> 12) & 0x3F));
+                buffer.setByte(writerIndex++, 0x80 | ((codePoint >> 6) & 0x3F));
+                buffer.setByte(writerIndex++, 0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.setByte(writerIndex++, '?');
+            } else {
+                buffer.setByte(writerIndex++, 0xE0 | (c >> 12));
+                buffer.setByte(writerIndex++, 0x80 | ((c >> 6) & 0x3F));
+                buffer.setByte(writerIndex++, 0x80 | (c & 0x3F));
+            }
         }
+
+        buffer.writerIndex(writerIndex);
+    }
+
+    // the appended bytes, indices are relative to the reader index like in NettyInputByteBuffer
+    @Override
+    public byte getByte(final long index) {
+        return buffer.getByte(buffer.readerIndex() + (int) index);
+    }
+
+    public int length() {
+        return buffer.readableBytes();
     }
 
     public ByteBuf buffer() {
@@ -59,4 +147,4 @@ public class NettyOutputByteBuffer implements ByteAppendable {
     public void buffer(final ByteBuf buffer) {
         this.buffer = buffer;
     }
-}
\ No newline at end of file
+}
@@ -31,17 +31,14 @@ public class NettyPostRequest extends AbstractRequest<Post> implements Post {
 
     public NettyPostRequest(final NettyPreparedPost builder) {
         super(builder);
-        this.body = builder.body;
     }
 
     @Override
     public HttpRequest get() {
         final DefaultFullHttpRequest result
-                = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl);
+                = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl, bodyContent());
         result.headers().set(headers);
 
-        result.content().writeBytes(body.buffer());
-
         return result;
     }
 }
\ No newline at end of file
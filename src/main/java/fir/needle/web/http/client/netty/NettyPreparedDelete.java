@@ -27,20 +27,17 @@ import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.lang.Cancelable;
 import fir.needle.web.http.client.Delete;
 import fir.needle.web.http.client.HttpResponseListener;
+import fir.needle.web.http.client.OverrunPolicy;
 import fir.needle.web.http.client.PreparableRequestsFactory;
 import fir.needle.web.http.client.PreparedDelete;
 import fir.needle.web.http.client.ScheduledDelete;
-import io.netty.buffer.Unpooled;
-import io.netty.handler.codec.http.HttpHeaderNames;
 
 public class NettyPreparedDelete extends RequestBuilder<NettyPreparedDelete> implements PreparedDelete {
-    NettyOutputByteBuffer body;
-
     @Override
     public void send(final HttpResponseListener<Delete> listener) {
         this.listener = listener;
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
 
         client.sendPreparedChain(chain.add(new NettyDeleteRequest(this)));
@@ -48,8 +45,22 @@ public class NettyPreparedDelete extends RequestBuilder<NettyPreparedDelete> imp
 
     @Override
     public Cancelable schedule(final int repeatPeriodMs, final HttpResponseListener<ScheduledDelete> listener) {
+        return schedule(repeatPeriodMs, null, listener);
+    }
+
+    @Override
+    public Cancelable scheduleAtFixedRate(final int periodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledDelete> listener) {
+
+        return schedule(periodMs, overrunPolicy, listener);
+    }
+
+    private Cancelable schedule(final int repeatPeriodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledDelete> listener) {
+
         this.listener = listener;
         this.repeatPeriodMs = repeatPeriodMs;
+        this.overrunPolicy = overrunPolicy;
 
         final NettyScheduledDelete result = new NettyScheduledDelete(this);
         client.sendScheduledRequest(result);
@@ -62,7 +73,7 @@ public class NettyPreparedDelete extends RequestBuilder<NettyPreparedDelete> imp
         this.listener = listener;
 
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
         chain.add(new NettyDeleteRequest(this));
 
@@ -71,11 +82,11 @@ public class NettyPreparedDelete extends RequestBuilder<NettyPreparedDelete> imp
 
     @Override
     public ByteAppendable withBody(final CharSequence contentType, final int contentLength) {
-        this.headers.add(HttpHeaderNames.CONTENT_TYPE, contentType);
-        this.headers.add(HttpHeaderNames.CONTENT_LENGTH, contentLength);
-
-        body = new NettyOutputByteBuffer(Unpooled.buffer(contentLength));
+        return newBody(contentType, contentLength);
+    }
 
-        return body;
+    @Override
+    public ByteAppendable withBody(final CharSequence contentType) {
+        return newBody(contentType);
     }
 }
\ No newline at end of file
@@ -27,17 +27,24 @@ package fir.needle.web.http.client.netty;
 import fir.needle.joint.lang.Cancelable;
 import fir.needle.web.http.client.Get;
 import fir.needle.web.http.client.HttpResponseListener;
+import fir.needle.web.http.client.OverrunPolicy;
 import fir.needle.web.http.client.PreparableRequestsFactory;
 import fir.needle.web.http.client.PreparedGet;
 import fir.needle.web.http.client.ScheduledGet;
 
 public class NettyPreparedGet extends RequestBuilder<NettyPreparedGet> implements PreparedGet {
 
+    @Override
+    public NettyPreparedGet withConditionalPolling() {
+        isConditionalPolling = true;
+        return this;
+    }
+
     @Override
     public void send(final HttpResponseListener<Get> listener) {
         this.listener = listener;
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
 
         client.sendPreparedChain(chain.add(new NettyGetRequest(this)));
@@ -45,8 +52,22 @@ public class NettyPreparedGet extends RequestBuilder<NettyPreparedGet> implement
 
     @Override
     public Cancelable schedule(final int repeatPeriodMs, final HttpResponseListener<ScheduledGet> listener) {
+        return schedule(repeatPeriodMs, null, listener);
+    }
+
+    @Override
+    public Cancelable scheduleAtFixedRate(final int periodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledGet> listener) {
+
+        return schedule(periodMs, overrunPolicy, listener);
+    }
+
+    private Cancelable schedule(final int repeatPeriodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledGet> listener) {
+
         this.listener = listener;
         this.repeatPeriodMs = repeatPeriodMs;
+        this.overrunPolicy = overrunPolicy;
 
         final NettyScheduledGet result = new NettyScheduledGet(this);
         client.sendScheduledRequest(result);
@@ -59,7 +80,7 @@ public class NettyPreparedGet extends RequestBuilder<NettyPreparedGet> implement
         this.listener = listener;
 
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
         chain.add(new NettyGetRequest(this));
 
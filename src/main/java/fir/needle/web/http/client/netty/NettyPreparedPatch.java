@@ -23,24 +23,24 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.nio.file.Path;
+
 import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.lang.Cancelable;
+import fir.needle.web.http.client.BodyProducer;
 import fir.needle.web.http.client.HttpResponseListener;
+import fir.needle.web.http.client.OverrunPolicy;
 import fir.needle.web.http.client.Patch;
 import fir.needle.web.http.client.PreparableRequestsFactory;
 import fir.needle.web.http.client.PreparedPatch;
 import fir.needle.web.http.client.ScheduledPatch;
-import io.netty.buffer.Unpooled;
-import io.netty.handler.codec.http.HttpHeaderNames;
 
 public class NettyPreparedPatch extends RequestBuilder<NettyPreparedPatch> implements PreparedPatch {
-    NettyOutputByteBuffer body;
-
     @Override
     public void send(final HttpResponseListener<Patch> listener) {
         this.listener = listener;
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
 
         client.sendPreparedChain(chain.add(new NettyPatchRequest(this)));
@@ -48,8 +48,24 @@ public class NettyPreparedPatch extends RequestBuilder<NettyPreparedPatch> imple
 
     @Override
     public Cancelable schedule(final int repeatPeriodMs, final HttpResponseListener<ScheduledPatch> listener) {
+        return schedule(repeatPeriodMs, null, listener);
+    }
+
+    @Override
+    public Cancelable scheduleAtFixedRate(final int periodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledPatch> listener) {
+
+        return schedule(periodMs, overrunPolicy, listener);
+    }
+
+    private Cancelable schedule(final int repeatPeriodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledPatch> listener) {
+
+        checkSchedulable();
+
         this.listener = listener;
         this.repeatPeriodMs = repeatPeriodMs;
+        this.overrunPolicy = overrunPolicy;
 
         final NettyScheduledPatch result = new NettyScheduledPatch(this);
         client.sendScheduledRequest(result);
@@ -62,7 +78,7 @@ public class NettyPreparedPatch extends RequestBuilder<NettyPreparedPatch> imple
         this.listener = listener;
 
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
         chain.add(new NettyPatchRequest(this));
 
@@ -71,11 +87,23 @@ public class NettyPreparedPatch extends RequestBuilder<NettyPreparedPatch> imple
 
     @Override
     public ByteAppendable withBody(final CharSequence contentType, final int contentLength) {
-        this.headers.add(HttpHeaderNames.CONTENT_TYPE, contentType);
-        this.headers.add(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        return newBody(contentType, contentLength);
+    }
 
-        body = new NettyOutputByteBuffer(Unpooled.buffer(contentLength));
+    @Override
+    public ByteAppendable withBody(final CharSequence contentType) {
+        return newBody(contentType);
+    }
 
-        return body;
+    @Override
+    public NettyPreparedPatch withBody(final CharSequence contentType, final long contentLength,
+            final BodyProducer producer) {
+
+        return streamBody(contentType, contentLength, producer, null);
+    }
+
+    @Override
+    public NettyPreparedPatch withBody(final CharSequence contentType, final Path file) {
+        return streamBody(contentType, BodyProducer.UNKNOWN_LENGTH, null, file);
     }
 }
\ No newline at end of file
@@ -23,24 +23,24 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.nio.file.Path;
+
 import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.lang.Cancelable;
+import fir.needle.web.http.client.BodyProducer;
 import fir.needle.web.http.client.HttpResponseListener;
+import fir.needle.web.http.client.OverrunPolicy;
 import fir.needle.web.http.client.Post;
 import fir.needle.web.http.client.PreparableRequestsFactory;
 import fir.needle.web.http.client.PreparedPost;
 import fir.needle.web.http.client.ScheduledPost;
-import io.netty.buffer.Unpooled;
-import io.netty.handler.codec.http.HttpHeaderNames;
 
 public class NettyPreparedPost extends RequestBuilder<NettyPreparedPost> implements PreparedPost {
-    NettyOutputByteBuffer body;
-
     @Override
     public void send(final HttpResponseListener<Post> listener) {
         this.listener = listener;
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
 
         client.sendPreparedChain(chain.add(new NettyPostRequest(this)));
@@ -48,8 +48,24 @@ public class NettyPreparedPost extends RequestBuilder<NettyPreparedPost> impleme
 
     @Override
     public Cancelable schedule(final int repeatPeriodMs, final HttpResponseListener<ScheduledPost> listener) {
+        return schedule(repeatPeriodMs, null, listener);
+    }
+
+    @Override
+    public Cancelable scheduleAtFixedRate(final int periodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledPost> listener) {
+
+        return schedule(periodMs, overrunPolicy, listener);
+    }
+
+    private Cancelable schedule(final int repeatPeriodMs, final OverrunPolicy overrunPolicy,
+            final HttpResponseListener<ScheduledPost> listener) {
+
+        checkSchedulable();
+
         this.listener = listener;
         this.repeatPeriodMs = repeatPeriodMs;
+        this.overrunPolicy = overrunPolicy;
 
         final NettyScheduledPost result = new NettyScheduledPost(this);
         client.sendScheduledRequest(result);
@@ -62,7 +78,7 @@ public class NettyPreparedPost extends RequestBuilder<NettyPreparedPost> impleme
         this.listener = listener;
 
         if (chain == null) {
-            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber);
+            chain = new PreparedRequestsChain(client.reconnectAttemptsNumber, client.pipeliningDepth);
         }
         chain.add(new NettyPostRequest(this));
 
@@ -71,11 +87,23 @@ public class NettyPreparedPost extends RequestBuilder<NettyPreparedPost> impleme
 
     @Override
     public ByteAppendable withBody(final CharSequence contentType, final int contentLength) {
-        headers.add(HttpHeaderNames.CONTENT_TYPE, contentType);
-        headers.add(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        return newBody(contentType, contentLength);
+    }
 
-        body = new NettyOutputByteBuffer(Unpooled.buffer(contentLength));
+    @Override
+    public ByteAppendable withBody(final CharSequence contentType) {
+        return newBody(contentType);
+    }
 
-        return body;
+    @Override
+    public NettyPreparedPost withBody(final CharSequence contentType, final long contentLength,
+            final BodyProducer producer) {
+
+        return streamBody(contentType, contentLength, producer, null);
+    }
+
+    @Override
+    public NettyPreparedPost withBody(final CharSequence contentType, final Path file) {
+        return streamBody(contentType, BodyProducer.UNKNOWN_LENGTH, null, file);
     }
 }
\ No newline at end of file
@@ -23,20 +23,29 @@
  */
 package fir.needle.web.http.client.netty;
 
+import fir.needle.joint.lang.Cancelable;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 
-interface NettyRequestHolder extends NettyHttpRequest {
+interface NettyRequestHolder extends NettyHttpRequest, Cancelable {
 
     NettyResponseListener listener();
 
     long currentRequestDelayMs();
 
+    boolean hasNextRequest();
+
     boolean isCanceled();
 
+    boolean isFinished();
+
+    boolean isPeriodic();
+
     Channel channel();
 
     void connect(Bootstrap bootstrap);
 
+    void attach(Channel channel);
+
     void setCancelIsDone();
 }
\ No newline at end of file
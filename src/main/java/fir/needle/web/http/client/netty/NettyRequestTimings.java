@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import fir.needle.web.http.client.RequestTimings;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+
+final class NettyRequestTimings implements RequestTimings, ChannelFutureListener {
+    private long startedNanos = NOT_RECORDED;
+    private long connectedNanos = NOT_RECORDED;
+    private long tlsHandshakeNanos = NOT_RECORDED;
+    private long requestWrittenNanos = NOT_RECORDED;
+    private long responseStartedNanos = NOT_RECORDED;
+    private long responseFinishedNanos = NOT_RECORDED;
+    private boolean isConnectionReused;
+
+    @Override
+    public long startedNanos() {
+        return startedNanos;
+    }
+
+    @Override
+    public long connectedNanos() {
+        return connectedNanos;
+    }
+
+    @Override
+    public long tlsHandshakeNanos() {
+        return tlsHandshakeNanos;
+    }
+
+    @Override
+    public long requestWrittenNanos() {
+        return requestWrittenNanos;
+    }
+
+    @Override
+    public long responseStartedNanos() {
+        return responseStartedNanos;
+    }
+
+    @Override
+    public long responseFinishedNanos() {
+        return responseFinishedNanos;
+    }
+
+    @Override
+    public boolean isConnectionReused() {
+        return isConnectionReused;
+    }
+
+    // the request goes out as a connection becomes active for it
+    void onConnected(final long startedNanos, final long connectedNanos, final boolean isConnectionReused) {
+        reset(startedNanos);
+        this.connectedNanos = connectedNanos;
+        this.isConnectionReused = isConnectionReused;
+    }
+
+    // the request goes out on a connection kept alive after the previous response
+    void onSendStarted(final long startedNanos) {
+        reset(startedNanos);
+        this.isConnectionReused = true;
+    }
+
+    void onResponseStarted(final long responseStartedNanos, final long tlsHandshakeNanos) {
+        this.responseStartedNanos = responseStartedNanos;
+
+        // the handshake of the connection belongs only to the requests written while it was being opened
+        if (connectedNanos != NOT_RECORDED && !isConnectionReused) {
+            this.tlsHandshakeNanos = tlsHandshakeNanos;
+        }
+    }
+
+    void onResponseFinished(final long responseFinishedNanos) {
+        this.responseFinishedNanos = responseFinishedNanos;
+    }
+
+    // the write future of the request completes once it has been flushed to the socket
+    @Override
+    public void operationComplete(final ChannelFuture future) {
+        if (future.isSuccess()) {
+            requestWrittenNanos = System.nanoTime();
+        }
+    }
+
+    private void reset(final long startedNanos) {
+        this.startedNanos = startedNanos;
+        this.connectedNanos = NOT_RECORDED;
+        this.tlsHandshakeNanos = NOT_RECORDED;
+        this.requestWrittenNanos = NOT_RECORDED;
+        this.responseStartedNanos = NOT_RECORDED;
+        this.responseFinishedNanos = NOT_RECORDED;
+        this.isConnectionReused = false;
+    }
+}
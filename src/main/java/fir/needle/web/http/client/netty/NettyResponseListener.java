@@ -32,8 +32,18 @@ interface NettyResponseListener {
 
     void onBeforeRequestSend();
 
+    // of the request that is written next
+    NettyRequestTimings nextTimings();
+
+    // of the request that is being answered
+    NettyRequestTimings timings();
+
     void onResponseStarted(int code);
 
+    boolean isHeaderOfInterest(CharSequence name);
+
+    boolean isBodyDiscarded();
+
     void onHeader(CharSequence key, CharSequence value);
 
     void onBodyStarted();
@@ -31,17 +31,14 @@ public class NettyScheduledDelete extends AbstractScheduledRequest<ScheduledDele
 
     public NettyScheduledDelete(final NettyPreparedDelete builder) {
         super(builder);
-        this.body = builder.body;
     }
 
     @Override
     public HttpRequest get() {
         final DefaultFullHttpRequest result
-                = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl);
+                = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl, bodyContent());
         result.headers().set(headers);
 
-        result.content().writeBytes(body.buffer().copy());
-
         return result;
     }
 }
\ No newline at end of file
@@ -38,6 +38,7 @@ public class NettyScheduledGet extends AbstractScheduledRequest<ScheduledGet> im
         final DefaultFullHttpRequest result
                 = new DefaultFullHttpRequest(httpVersion, httpMethod, relativeUrl);
         result.headers().set(headers);
+        addValidators(result.headers());
 
         return result;
     }
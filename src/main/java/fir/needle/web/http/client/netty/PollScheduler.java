@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import fir.needle.joint.logging.Logger;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+
+final class PollScheduler {
+    private final HashedWheelTimer timer;
+
+    PollScheduler() {
+        this.timer = null;
+    }
+
+    PollScheduler(final int tickMs, final int ticksPerWheel) {
+        // O(1) insert and cancel instead of the O(log n) priority queue of the event loop, which matters with
+        // hundreds of thousands of pending polls; the price is the precision of one tick
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("fir-needle-poll-timer", true), tickMs,
+                TimeUnit.MILLISECONDS, ticksPerWheel);
+    }
+
+    void schedule(final EventExecutor executor, final Runnable task, final long delayMs) {
+        if (timer == null) {
+            executor.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        if (delayMs <= 0) {
+            executor.execute(task);
+            return;
+        }
+
+        // the wheel only keeps time, the task itself always runs on the event loop of its channel
+        timer.newTimeout(timeout -> executor.execute(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    void stop(final Logger logger) {
+        if (timer == null) {
+            return;
+        }
+
+        final Set<Timeout> unprocessed = timer.stop();
+
+        // let the pending polls run once more so that they notice the cancel and close their connections
+        for (final Timeout crtTimeout : unprocessed) {
+            try {
+                crtTimeout.task().run(crtTimeout);
+            } catch (final Exception e) {
+                // most often the event loop is already shutting down, but it may as well be a failing listener
+                logger.error("Error while running a pending poll on stop", e);
+            }
+        }
+    }
+}
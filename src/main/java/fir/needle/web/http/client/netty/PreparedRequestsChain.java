@@ -23,8 +23,8 @@
  */
 package fir.needle.web.http.client.netty;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import fir.needle.joint.io.ByteArea;
@@ -35,58 +35,62 @@ import fir.needle.joint.lang.VoidResult;
 import fir.needle.web.http.client.AbstractHttpClientException;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
 
 class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener, Cancelable {
+    static final int NO_PIPELINING = 1;
+
     private static final long ZERO_DELAY = 0;
-    private final List<AbstractRequest> requestsChain = new ArrayList<>();
+    private final Deque<AbstractRequest> requestsToSend = new ArrayDeque<>();
+    private final Deque<AbstractRequest> requestsInFlight = new ArrayDeque<>();
     private final int reconnectAttemptsNumber;
+    private final int pipeliningDepth;
 
-    private int crtRequestIndex = -1;
+    private AbstractRequest lastAnsweredRequest;
     private int reconnectCounter;
-    private AbstractRequest crtRequest;
-    private boolean isResend;
-    private boolean wasResponseFinished;
+    private boolean isResendRequested;
     private AtomicBoolean isCanceled = new AtomicBoolean(false);
     private Channel channel;
 
-    PreparedRequestsChain(final int reconnectAttemptsNumber) {
+    NettyHttpClient client;
+    long scheduledId;
+
+    PreparedRequestsChain(final int reconnectAttemptsNumber, final int pipeliningDepth) {
         this.reconnectAttemptsNumber = reconnectAttemptsNumber;
+        this.pipeliningDepth = pipeliningDepth;
     }
 
     @Override
     public HttpRequest get() {
-        if (crtRequestIndex >= requestsChain.size() - 1 && !isResend) {
-            return null;
-        }
-
-        if (!isResend) {
-            crtRequestIndex++;
-        }
-
-        crtRequest = requestsChain.get(crtRequestIndex);
+        final AbstractRequest nextRequest = nextRequest();
+        return nextRequest == null ? null : (HttpRequest) nextRequest.get();
+    }
 
-        return (HttpRequest) crtRequest.get();
+    @Override
+    public Object encoded() {
+        final AbstractRequest nextRequest = nextRequest();
+        return nextRequest == null ? null : nextRequest.encoded();
     }
 
     @Override
     public String relativeUrl() {
-        return crtRequest.relativeUrl();
+        return crtRequest().relativeUrl();
     }
 
     @Override
     public String method() {
-        return crtRequest.method();
+        return crtRequest().method();
     }
 
     @Override
     public String path() {
-        return crtRequest.path();
+        return crtRequest().path();
     }
 
     @Override
     public String query() {
-        return crtRequest.query();
+        return crtRequest().query();
     }
 
     @Override
@@ -99,10 +103,29 @@ class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener
         return ZERO_DELAY;
     }
 
+    @Override
+    public boolean hasNextRequest() {
+        if (requestsToSend.isEmpty() || requestsInFlight.size() >= pipeliningDepth) {
+            return false;
+        }
+
+        // RFC 7230 6.3.2: nothing is pipelined after a non-idempotent request until it has been answered
+        return requestsInFlight.isEmpty() || isIdempotent(requestsInFlight.peekLast().httpMethod);
+    }
+
     @Override
     public boolean isCanceled() {
-        return !isResend && crtRequestIndex >= requestsChain.size() - 1 && wasResponseFinished ||
-                reconnectCounter > reconnectAttemptsNumber || isCanceled.get();
+        return isDone() || reconnectCounter > reconnectAttemptsNumber || isCanceled.get();
+    }
+
+    @Override
+    public boolean isFinished() {
+        return isDone() && !isCanceled.get();
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return false;
     }
 
     @Override
@@ -115,21 +138,32 @@ class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener
         this.channel = bootstrap.connect().channel();
     }
 
+    @Override
+    public void attach(final Channel channel) {
+        this.channel = channel;
+    }
+
     @Override
     public void setCancelIsDone() {
-        //
+        if (client != null) {
+            client.deregister(scheduledId);
+        }
+
+        for (final AbstractRequest request : requestsInFlight) {
+            request.release();
+        }
+
+        for (final AbstractRequest request : requestsToSend) {
+            request.release();
+        }
     }
 
     boolean isEmpty() {
-        return requestsChain.isEmpty();
+        return requestsToSend.isEmpty() && requestsInFlight.isEmpty();
     }
 
     PreparedRequestsChain add(final AbstractRequest request) {
-        if (crtRequest == null) {
-            crtRequest = request;
-        }
-
-        requestsChain.add(request);
+        requestsToSend.addLast(request);
 
         return this;
     }
@@ -137,57 +171,92 @@ class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener
     @Override
     public void onConnected() {
         reconnectCounter = 0;
-        crtRequest.onConnected();
+        crtRequest().onConnected();
     }
 
     @Override
     public void onBeforeRequestSend() {
-        crtRequest.onBeforeRequestSend();
+        requestsToSend.peekFirst().onBeforeRequestSend();
+    }
+
+    @Override
+    public NettyRequestTimings nextTimings() {
+        return requestsToSend.peekFirst().timings();
+    }
+
+    @Override
+    public NettyRequestTimings timings() {
+        return crtRequest().timings();
     }
 
     @Override
     public void onResponseStarted(final int code) {
-        wasResponseFinished = false;
-        crtRequest.onResponseStarted(code);
+        crtRequest().onResponseStarted(code);
+    }
+
+    @Override
+    public boolean isHeaderOfInterest(final CharSequence name) {
+        return crtRequest().isHeaderOfInterest(name);
+    }
+
+    @Override
+    public boolean isBodyDiscarded() {
+        return crtRequest().isBodyDiscarded();
     }
 
     @Override
     public void onHeader(final CharSequence key, final CharSequence value) {
-        crtRequest.onHeader(key, value);
+        crtRequest().onHeader(key, value);
     }
 
     @Override
     public void onBodyStarted() {
-        crtRequest.onBodyStarted();
+        crtRequest().onBodyStarted();
     }
 
     @Override
     public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
-        crtRequest.onBodyContent(buffer, startIndex, length);
+        crtRequest().onBodyContent(buffer, startIndex, length);
     }
 
     @Override
     public void onBodyFinished() {
-        crtRequest.onBodyFinished();
+        crtRequest().onBodyFinished();
     }
 
     @Override
     public void onResponseFinished() {
-        wasResponseFinished = true;
-        isResend = false;
-        crtRequest.onResponseFinished();
+        final AbstractRequest answeredRequest = requestsInFlight.pollFirst();
+
+        lastAnsweredRequest = answeredRequest;
+        isResendRequested = false;
+
+        try {
+            answeredRequest.onResponseFinished();
+        } finally {
+            if (isResendRequested) {
+                isResendRequested = false;
+                requestsToSend.addFirst(answeredRequest);
+            } else {
+                // an answered request can only be resent from its own onResponseFinished
+                answeredRequest.release();
+            }
+        }
     }
 
     @Override
     public void onListenerError(final Throwable error) {
-        crtRequest.listener.onListenerError(error);
+        crtRequest().onListenerError(error);
     }
 
     @Override
     public void onDisconnected() {
-        if (!wasResponseFinished) {
-            isResend = true;
+        final AbstractRequest crtRequest = crtRequest();
+
+        // a normal close between two responses (no keep-alive, finished HTTP/2 stream) is not a failed attempt
+        if (!requestsInFlight.isEmpty()) {
             reconnectCounter++;
+            replayUnansweredRequests();
         }
 
         crtRequest.onDisconnected();
@@ -195,16 +264,18 @@ class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener
 
     @Override
     public void onDisconnectedByError(final AbstractHttpClientException exception) {
-        if (!wasResponseFinished) {
-            isResend = true;
+        final AbstractRequest crtRequest = crtRequest();
+
+        if (!isDone()) {
             reconnectCounter++;
+            replayUnansweredRequests();
         }
 
         crtRequest.onDisconnectedByError(exception);
     }
 
     void resendCurrentRequest() {
-        isResend = true;
+        isResendRequested = true;
     }
 
     @Override
@@ -212,4 +283,38 @@ class PreparedRequestsChain implements NettyRequestHolder, NettyResponseListener
         isCanceled.set(true);
         return NoWaitFuture.INSTANCE;
     }
+
+    private AbstractRequest crtRequest() {
+        final AbstractRequest answeringRequest = requestsInFlight.peekFirst();
+        if (answeringRequest != null) {
+            return answeringRequest;
+        }
+
+        final AbstractRequest nextRequest = requestsToSend.peekFirst();
+        return nextRequest != null ? nextRequest : lastAnsweredRequest;
+    }
+
+    private AbstractRequest nextRequest() {
+        final AbstractRequest nextRequest = requestsToSend.pollFirst();
+        if (nextRequest != null) {
+            requestsInFlight.addLast(nextRequest);
+        }
+
+        return nextRequest;
+    }
+
+    private boolean isDone() {
+        return requestsToSend.isEmpty() && requestsInFlight.isEmpty();
+    }
+
+    private void replayUnansweredRequests() {
+        // whatever has been written but not answered yet goes back in front of the queue in the original order
+        while (!requestsInFlight.isEmpty()) {
+            requestsToSend.addFirst(requestsInFlight.pollLast());
+        }
+    }
+
+    private static boolean isIdempotent(final HttpMethod method) {
+        return method != HttpMethod.POST && method != HttpMethod.PATCH && method != HttpMethod.CONNECT;
+    }
 }
\ No newline at end of file
@@ -23,9 +23,8 @@
  */
 package fir.needle.web.http.client.netty;
 
-import java.util.concurrent.TimeUnit;
-
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.NettyMetrics;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 
@@ -33,16 +32,21 @@ class ReconnectHandler extends ChannelInboundHandlerAdapter {
     private final Runnable reconnectTask;
     private final NettyRequestHolder requestHolder;
     private final int reconnectTimeoutMs;
+    private final PollScheduler pollScheduler;
+    private final NettyMetrics metrics;
     private final Logger logger;
 
     private Throwable error;
+    private boolean wasActive;
 
     ReconnectHandler(final Runnable reconnectTask, final NettyRequestHolder requestHolder, final int reconnectTimeoutMs,
-            final Logger logger) {
+            final PollScheduler pollScheduler, final NettyMetrics metrics, final Logger logger) {
 
         this.reconnectTask = reconnectTask;
         this.requestHolder = requestHolder;
         this.reconnectTimeoutMs = reconnectTimeoutMs;
+        this.pollScheduler = pollScheduler;
+        this.metrics = metrics;
         this.logger = logger;
     }
 
@@ -56,6 +60,13 @@ class ReconnectHandler extends ChannelInboundHandlerAdapter {
         }
 
         error = null;
+        wasActive = false;
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        wasActive = true;
+        ctx.fireChannelActive();
     }
 
     @Override
@@ -81,10 +92,15 @@ class ReconnectHandler extends ChannelInboundHandlerAdapter {
             return;
         }
 
+        // either branch opens a new connection, it is a reconnect when the previous one failed or was lost
+        if (metrics != null && (!wasActive || error != null)) {
+            metrics.onHttpReconnect();
+        }
+
         if (ctx.channel().remoteAddress() == null || // was not able to connect
                 error != null) { // channel was closed by an exception
 
-            ctx.channel().eventLoop().schedule(reconnectTask, reconnectTimeoutMs, TimeUnit.MILLISECONDS);
+            pollScheduler.schedule(ctx.channel().eventLoop(), reconnectTask, reconnectTimeoutMs);
 
             if (logger.isTraceEnabled()) {
                 logger.trace(
@@ -96,8 +112,7 @@ class ReconnectHandler extends ChannelInboundHandlerAdapter {
         } else {
             // we were closed normally so it looks like KEEP_ALIVE is not supported by the server, let's
             // try to repeat rather than to reconnect
-            ctx.channel().eventLoop().schedule(reconnectTask, requestHolder.currentRequestDelayMs(),
-                    TimeUnit.MILLISECONDS);
+            pollScheduler.schedule(ctx.channel().eventLoop(), reconnectTask, requestHolder.currentRequestDelayMs());
 
             if (logger.isTraceEnabled()) {
                 logger.trace(
@@ -23,20 +23,29 @@
  */
 package fir.needle.web.http.client.netty;
 
+import java.nio.file.Path;
+
+import fir.needle.joint.io.ByteAppendable;
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.http.client.BodyProducer;
 import fir.needle.web.http.client.HttpResponseListener;
 import fir.needle.web.http.client.NoBodyRequestBuilder;
+import fir.needle.web.http.client.OverrunPolicy;
 import fir.needle.web.http.client.PreparableRequestsFactory;
 import fir.needle.web.http.client.PreparedDelete;
 import fir.needle.web.http.client.PreparedPatch;
 import fir.needle.web.http.client.PreparedPost;
 import fir.needle.web.http.client.PreparedPut;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.AsciiString;
 
 class RequestBuilder<P extends NoBodyRequestBuilder> implements PreparableRequestsFactory {
+    static final int GROWABLE_BODY_CAPACITY = 256;
+
 
     HttpVersion httpVersion = HttpVersion.HTTP_1_1;
     HttpMethod httpMethod;
@@ -46,10 +55,19 @@ class RequestBuilder<P extends NoBodyRequestBuilder> implements PreparableReques
     String query;
 
     HttpHeaders headers;
+    AsciiString[] headerInterest;
+    boolean isBodyDiscarded;
+    NettyOutputByteBuffer body;
+    BodyProducer bodyProducer;
+    Path bodyFile;
+    long bodyLength;
+    boolean isGrowableBody;
     HttpResponseListener listener;
 
     long scheduledId;
     int repeatPeriodMs;
+    OverrunPolicy overrunPolicy;
+    boolean isConditionalPolling;
 
     NettyHttpClient client;
     PreparedRequestsChain chain;
@@ -80,6 +98,38 @@ class RequestBuilder<P extends NoBodyRequestBuilder> implements PreparableReques
         return (P) this;
     }
 
+    public P withHeaderInterest(final CharSequence... names) {
+        headerInterest = new AsciiString[names.length];
+        for (int i = 0; i < names.length; i++) {
+            headerInterest[i] = AsciiString.of(names[i]);
+        }
+
+        return (P) this;
+    }
+
+    public P withAcceptEncoding(final CharSequence... encodings) {
+        if (headers == null) {
+            headers = new DefaultHttpHeaders();
+        }
+
+        final StringBuilder value = new StringBuilder();
+        for (int i = 0; i < encodings.length; i++) {
+            if (i > 0) {
+                value.append(", ");
+            }
+
+            value.append(encodings[i]);
+        }
+
+        headers.set(HttpHeaderNames.ACCEPT_ENCODING, value.toString());
+        return (P) this;
+    }
+
+    public P withDiscardedBody() {
+        isBodyDiscarded = true;
+        return (P) this;
+    }
+
     @Override
     public NettyPreparedGet prepareGet(final String path) {
         return prepareGet(path, null);
@@ -92,6 +142,18 @@ class RequestBuilder<P extends NoBodyRequestBuilder> implements PreparableReques
         return result;
     }
 
+    @Override
+    public NettyPreparedHead prepareHead(final String path) {
+        return prepareHead(path, null);
+    }
+
+    @Override
+    public NettyPreparedHead prepareHead(final String path, final String query) {
+        final NettyPreparedHead result = client.createPreparedHead(path, query);
+        result.chain = chain;
+        return result;
+    }
+
     @Override
     public PreparedPost preparePost(final String path) {
         return preparePost(path, null);
@@ -140,6 +202,87 @@ class RequestBuilder<P extends NoBodyRequestBuilder> implements PreparableReques
         return result;
     }
 
+    ByteAppendable newBody(final CharSequence contentType, final int contentLength) {
+        if (headers == null) {
+            headers = new DefaultHttpHeaders();
+        }
+
+        headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        headers.setInt(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+
+        releaseBody();
+        bodyProducer = null;
+        bodyFile = null;
+        isGrowableBody = false;
+        body = new NettyOutputByteBuffer(client.newBodyBuffer(contentLength));
+
+        return body;
+    }
+
+    ByteAppendable newBody(final CharSequence contentType) {
+        if (headers == null) {
+            headers = new DefaultHttpHeaders();
+        }
+
+        // content-length is taken from the written bytes on every send
+        headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+
+        releaseBody();
+        bodyProducer = null;
+        bodyFile = null;
+        isGrowableBody = true;
+        body = new NettyOutputByteBuffer(client.newBodyBuffer(GROWABLE_BODY_CAPACITY));
+
+        return body;
+    }
+
+    P streamBody(final CharSequence contentType, final long contentLength, final BodyProducer producer,
+            final Path file) {
+
+        if (client.isHttp2()) {
+            throw new IllegalStateException("Streamed bodies are only sent over HTTP/1.1");
+        }
+
+        if (headers == null) {
+            headers = new DefaultHttpHeaders();
+        }
+
+        // content-length or transfer-encoding are set on every send, a file may change in between
+        headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+
+        releaseBody();
+        isGrowableBody = false;
+        bodyProducer = producer;
+        bodyFile = file;
+        bodyLength = contentLength;
+
+        return (P) this;
+    }
+
+    void checkSchedulable() {
+        // a producer is drained by the first send, the second tick would have nothing left to stream
+        if (bodyProducer != null) {
+            throw new IllegalStateException("A request with a body producer can't be scheduled, it can only be " +
+                    "sent once; use a file or a buffered body for " + path);
+        }
+    }
+
+    NettyOutputByteBuffer takeBody() {
+        // the body is handed over to the request built from this builder together with its reference
+        final NettyOutputByteBuffer result = body;
+        body = null;
+        return result;
+    }
+
+    private void releaseBody() {
+        if (body != null) {
+            body.buffer().release();
+            body = null;
+        }
+    }
+
     P withClient(final NettyHttpClient client) {
         this.client = client;
         return (P) this;
@@ -0,0 +1,63 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.util.AsciiString;
+
+// stays on the connection for its lifetime, a response whose body is discarded passes it without an inflater
+final class ResponseDecompressor extends HttpContentDecompressor {
+    private final ContentDecoderFactory[] decoders;
+
+    private boolean isBypassed;
+
+    ResponseDecompressor(final ContentDecoderFactory[] decoders) {
+        this.decoders = decoders;
+    }
+
+    void bypass(final boolean isBypassed) {
+        this.isBypassed = isBypassed;
+    }
+
+    @Override
+    protected EmbeddedChannel newContentDecoder(final String contentEncoding) throws Exception {
+        if (isBypassed) {
+            return null;
+        }
+
+        // registered decoders go first, gzip and deflate fall back to the built-in zlib ones, anything else is
+        // passed on as it is together with its content-encoding header
+        for (int i = 0; i < decoders.length; i++) {
+            if (AsciiString.contentEqualsIgnoreCase(decoders[i].encoding(), contentEncoding)) {
+                final Channel channel = ctx.channel();
+                return new EmbeddedChannel(channel.id(), channel.metadata().hasDisconnect(), channel.config(),
+                        decoders[i].newDecoder());
+            }
+        }
+
+        return super.newContentDecoder(contentEncoding);
+    }
+}
@@ -23,112 +23,101 @@
  */
 package fir.needle.web.http.client.netty;
 
-import java.util.concurrent.TimeUnit;
-
 import fir.needle.joint.logging.Logger;
-import io.netty.channel.ChannelFuture;
+import fir.needle.web.FlightEvent;
+import fir.needle.web.FlightRecorder;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.DefaultFullHttpRequest;
-import io.netty.handler.codec.http.HttpRequest;
 
 class SendRequestHandler extends SimpleChannelInboundHandler<Boolean> {
     private final NettyRequestHolder requestHolder;
+    private final PollScheduler pollScheduler;
     private final Logger logger;
     private final NettyResponseListener listener;
+    private final FlightRecorder recorder;
+
+    SendRequestHandler(final NettyRequestHolder requestHolder, final PollScheduler pollScheduler,
+            final FlightRecorder recorder, final Logger logger) {
 
-    SendRequestHandler(final NettyRequestHolder requestHolder, final Logger logger) {
         this.requestHolder = requestHolder;
+        this.pollScheduler = pollScheduler;
+        this.recorder = recorder;
         this.logger = logger;
         this.listener = requestHolder.listener();
     }
 
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, final Boolean lastResponseChunkReceived) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRead0 with is last = " + lastResponseChunkReceived + " for " +
-                            ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
-
         if (!lastResponseChunkReceived) {
             return;
         }
 
         if (requestHolder.isCanceled()) {
-            if (logger.isTraceEnabled()) {
-                logger.trace(
-                        getClass().getSimpleName() + ".channelRead0 the task has been canceled for " +
-                                ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                                " in the channel " + ctx.channel().id() +
-                                " and in the thread " + Thread.currentThread());
-            }
+            record(ctx, FlightEvent.REQUEST_CANCELED, 0);
 
             ctx.close();
             return;
         }
 
-        if (requestHolder.get() == null) {
+        if (!requestHolder.hasNextRequest()) {
             return;
         }
 
-        ctx.channel().eventLoop().schedule(() -> {
+        final long delayMs = requestHolder.currentRequestDelayMs();
+
+        pollScheduler.schedule(ctx.channel().eventLoop(), () -> {
             if (requestHolder.isCanceled()) {
-                if (logger.isTraceEnabled()) {
-                    logger.trace(
-                            getClass().getSimpleName() + ".channelRead0 the task has been canceled for " +
-                                    ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                                    "in the channel " + ctx.channel().id() +
-                                    " and in the thread " + Thread.currentThread());
-                }
+                record(ctx, FlightEvent.REQUEST_CANCELED, 0);
 
                 ctx.close();
                 return;
             }
 
-            try {
-                listener.onBeforeRequestSend();
-            } catch (final Exception | AssertionError e) {
-
-                logger.error("Error while onBeforeRequestSend notification", e);
-
-                try {
-                    listener.onListenerError(e);
-                } catch (final Exception | AssertionError er) {
-                    logger.error("Error while onListenerError notification", er);
-                }
+            if (!ctx.channel().isActive()) {
+                return;
             }
 
-            final HttpRequest requestToSend = requestHolder.get();
-            if (logger.isTraceEnabled()) {
-                logger.trace(
-                        getClass().getSimpleName() + ".channelRead0 sending request to " +
-                                ctx.channel().remoteAddress() + ", " + requestHolder.relativeUrl() +
-                                " in the channel " + ctx.channel().id() + " and in the thread " +
-                                Thread.currentThread() + ":\n" + requestToSend +
-                                "\n\n" + new String(((DefaultFullHttpRequest) requestToSend).content().array()));
+            int requestsSent = 0;
+            while (requestHolder.hasNextRequest()) {
+                sendNextRequest(ctx);
+                requestsSent++;
             }
 
-            if (ctx.channel().isActive()) {
-                final ChannelFuture channelFuture = ctx.channel().writeAndFlush(requestToSend);
-
-                if (logger.isTraceEnabled()) {
-                    channelFuture.addListener((f) ->
-                            logger.trace(
-                                    "_____________The result of write and flush in the channel " + ctx.channel().id() +
-                                            " and in the thread " + Thread.currentThread() + " is " + f.isSuccess() +
-                                            "_____________" +
-                                            (f.cause() == null ? "" : ('\n' + f.cause().toString()))));
-                }
+            ctx.channel().flush();
+            record(ctx, FlightEvent.REQUEST_SENT, requestsSent);
+        }, delayMs);
+
+        record(ctx, FlightEvent.REQUEST_SCHEDULED, delayMs);
+    }
+
+    private void sendNextRequest(final ChannelHandlerContext ctx) {
+        try {
+            listener.onBeforeRequestSend();
+        } catch (final Exception | AssertionError e) {
+
+            logger.error("Error while onBeforeRequestSend notification", e);
+
+            try {
+                listener.onListenerError(e);
+            } catch (final Exception | AssertionError er) {
+                logger.error("Error while onListenerError notification", er);
             }
-        }, requestHolder.currentRequestDelayMs(), TimeUnit.MILLISECONDS);
+        }
+
+        final NettyRequestTimings timings = listener.nextTimings();
+        timings.onSendStarted(System.nanoTime());
+
+        final Object requestToSend = requestHolder.encoded();
+        if (requestToSend instanceof StreamedRequestBody) {
+            ((StreamedRequestBody) requestToSend).attach(ctx.pipeline());
+        }
+
+        ctx.channel().write(requestToSend).addListener(timings);
+    }
 
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRead0 scheduled new request " + requestHolder.relativeUrl() +
-                            " for " + ctx.channel().remoteAddress() + " in the channel " + ctx.channel().id() +
-                            " and in the thread " + Thread.currentThread());
+    private void record(final ChannelHandlerContext ctx, final FlightEvent event, final long value) {
+        if (recorder != null) {
+            recorder.record(event, ctx.channel(), value);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,215 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import fir.needle.web.http.client.BodyProducer;
+import fir.needle.web.http.client.HttpClientException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+/*
+ * One send of a request whose body is streamed: the head, then the body in chunks which ChunkedWriteHandler only
+ * asks for while the channel is writable, then the last content. A file goes out as a single FileRegion
+ * (sendfile / splice) unless the connection is encrypted.
+ */
+final class StreamedRequestBody implements ChunkedInput<Object> {
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    private final HttpRequest head;
+    private final BodyProducer producer;
+    private final Path file;
+    private final long length;
+
+    private Channel channel;
+    private FileChannel fileChannel;
+    private boolean isZeroCopy;
+    private boolean isHeadSent;
+    private boolean isBodyFinished;
+    private boolean isLastSent;
+    private long progress;
+
+    StreamedRequestBody(final HttpRequest head, final BodyProducer producer, final long length) {
+        this.head = head;
+        this.producer = producer;
+        this.file = null;
+        this.length = length;
+    }
+
+    StreamedRequestBody(final HttpRequest head, final Path file, final long length) {
+        this.head = head;
+        this.producer = null;
+        this.file = file;
+        this.length = length;
+    }
+
+    void attach(final ChannelPipeline pipeline) {
+        channel = pipeline.channel();
+
+        ChunkedWriteHandler chunkedWriter = pipeline.get(ChunkedWriteHandler.class);
+        if (chunkedWriter == null) {
+            chunkedWriter = new ChunkedWriteHandler();
+            pipeline.addAfter(pipeline.context(TemplateClientCodec.class).name(), null, chunkedWriter);
+        }
+
+        isZeroCopy = file != null && pipeline.get(SslHandler.class) == null;
+
+        if (producer != null) {
+            // always goes through the event loop, so a resume from inside produce doesn't re-enter the writer
+            final ChunkedWriteHandler resumedWriter = chunkedWriter;
+            final EventLoop eventLoop = pipeline.channel().eventLoop();
+            producer.onStart(() -> eventLoop.execute(resumedWriter::resumeTransfer));
+        }
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return isLastSent;
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (producer != null) {
+            producer.close();
+        }
+
+        if (fileChannel != null) {
+            fileChannel.close();
+        }
+    }
+
+    @Deprecated
+    @Override
+    public Object readChunk(final ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public Object readChunk(final ByteBufAllocator allocator) throws Exception {
+        if (!isHeadSent) {
+            isHeadSent = true;
+            return head;
+        }
+
+        if (isBodyFinished) {
+            isLastSent = true;
+            return LastHttpContent.EMPTY_LAST_CONTENT;
+        }
+
+        if (isZeroCopy) {
+            // the region opens the file lazily and closes it once it's been transferred
+            isBodyFinished = true;
+            progress = length;
+            return new DefaultFileRegion(file.toFile(), 0, length);
+        }
+
+        final ByteBuf chunk = allocator.buffer(CHUNK_SIZE);
+
+        try {
+            final int produced = file != null ? readFile(chunk) : producer.produce(new NettyOutputByteBuffer(chunk),
+                    CHUNK_SIZE);
+
+            if (produced == BodyProducer.END_OF_BODY) {
+                if (isLengthKnown() && progress != length) {
+                    throw framingError();
+                }
+
+                chunk.release();
+                isBodyFinished = true;
+                return readChunk(allocator);
+            }
+
+            if (file == null && produced == BodyProducer.NO_DATA_YET) {
+                // null suspends ChunkedWriteHandler until the producer resumes it, an empty chunk would spin
+                chunk.release();
+                return null;
+            }
+
+            progress += chunk.readableBytes();
+
+            if (isLengthKnown() && progress > length) {
+                throw framingError();
+            }
+
+            return new DefaultHttpContent(chunk);
+        } catch (final IOException | RuntimeException e) {
+            chunk.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+
+    // a file body always has its length, taken when the request was encoded, and the file may shrink meanwhile
+    private boolean isLengthKnown() {
+        return length != BodyProducer.UNKNOWN_LENGTH;
+    }
+
+    // the server would read the rest of the declared body from the next request, so the connection can't be reused
+    private HttpClientException framingError() {
+        final HttpClientException error = new HttpClientException("The body " + (file != null ? "file " + file :
+                "producer") + " has given " + progress + " bytes, but the Content-Length is " + length);
+
+        channel.pipeline().fireExceptionCaught(error);
+        channel.close();
+
+        return error;
+    }
+
+    private int readFile(final ByteBuf chunk) throws IOException {
+        if (fileChannel == null) {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+
+        final long remaining = length - progress;
+        if (remaining <= 0) {
+            return BodyProducer.END_OF_BODY;
+        }
+
+        return chunk.writeBytes(fileChannel, progress, (int) Math.min(CHUNK_SIZE, remaining));
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.CombinedChannelDuplexHandler;
+import io.netty.handler.codec.http.HttpMessage;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+/*
+ * HttpClientCodec counterpart that also writes EncodedHttpRequest templates as they are. HttpClientCodec can't be
+ * used for that: its decoder polls the method of every answered request from a private queue which only its own
+ * encoder fills, and it needs that method to know that a response to HEAD has no body.
+ */
+final class TemplateClientCodec
+        extends CombinedChannelDuplexHandler<TemplateClientCodec.ResponseDecoder, TemplateClientCodec.RequestEncoder> {
+
+    private static final RequestEncoder TEMPLATE_ENCODER = new RequestEncoder(null);
+    private static final int CRLF_SHORT = ('\r' << 8) | '\n';
+    private static final int INITIAL_HEAD_SIZE = 256;
+
+    TemplateClientCodec() {
+        final Queue<HttpMethod> methods = new ArrayDeque<>();
+        init(new ResponseDecoder(methods), new RequestEncoder(methods));
+    }
+
+    static ByteBuf encodeHead(final HttpRequest request) {
+        return TEMPLATE_ENCODER.encodeHead(request);
+    }
+
+    static final class RequestEncoder extends HttpRequestEncoder {
+        private final Queue<HttpMethod> methods;
+
+        private RequestEncoder(final Queue<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        @Override
+        public boolean acceptOutboundMessage(final Object msg) throws Exception {
+            return msg instanceof EncodedHttpRequest || super.acceptOutboundMessage(msg);
+        }
+
+        @Override
+        protected void encode(final ChannelHandlerContext ctx, final Object msg, final List<Object> out)
+                throws Exception {
+
+            if (msg instanceof EncodedHttpRequest) {
+                final EncodedHttpRequest template = (EncodedHttpRequest) msg;
+                methods.offer(template.method());
+                out.add(template.content().retain());
+                return;
+            }
+
+            if (msg instanceof HttpRequest) {
+                methods.offer(((HttpRequest) msg).method());
+            }
+
+            super.encode(ctx, msg, out);
+        }
+
+        private ByteBuf encodeHead(final HttpRequest request) {
+            final ByteBuf result = Unpooled.buffer(INITIAL_HEAD_SIZE);
+
+            try {
+                encodeInitialLine(result, request);
+                encodeHeaders(request.headers(), result);
+            } catch (final Exception e) {
+                result.release();
+                throw new IllegalStateException("Unable to encode request " + request.uri(), e);
+            }
+
+            result.writeShort(CRLF_SHORT);
+
+            return result;
+        }
+    }
+
+    static final class ResponseDecoder extends HttpResponseDecoder {
+        private final Queue<HttpMethod> methods;
+
+        private ResponseDecoder(final Queue<HttpMethod> methods) {
+            this.methods = methods;
+        }
+
+        @Override
+        protected boolean isContentAlwaysEmpty(final HttpMessage msg) {
+            final int code = ((HttpResponse) msg).status().code();
+
+            // interim responses don't answer the request
+            if (code == HttpResponseStatus.CONTINUE.code() || code == HttpResponseStatus.SWITCHING_PROTOCOLS.code()) {
+                return super.isContentAlwaysEmpty(msg);
+            }
+
+            if (HttpMethod.HEAD.equals(methods.poll())) {
+                return true;
+            }
+
+            return super.isContentAlwaysEmpty(msg);
+        }
+    }
+}
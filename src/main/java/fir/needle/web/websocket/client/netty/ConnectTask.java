@@ -26,12 +26,11 @@ package fir.needle.web.websocket.client.netty;
 import fir.needle.joint.logging.Logger;
 import fir.needle.web.websocket.client.WebSocketListener;
 import io.netty.bootstrap.Bootstrap;
-import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.handler.codec.http.HttpClientCodec;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpObjectAggregator;
@@ -62,15 +61,22 @@ class ConnectTask implements Runnable {
 
         bootstrap = new Bootstrap()
                             .group(client.eventLoopGroup)
-                            .channel(NioSocketChannel.class)
+                            .channel(client.channelClass)
                             .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, client.connectTimeoutMs)
-                            .option(ChannelOption.ALLOCATOR, new PooledByteBufAllocator())
-                            .handler(new ChannelInitializer<SocketChannel>() {
+                            .option(ChannelOption.ALLOCATOR, client.allocator)
+                            .handler(new ChannelInitializer<Channel>() {
                                 @Override
-                                protected void initChannel(final SocketChannel ch) {
+                                protected void initChannel(final Channel ch) {
                                     fillPipeline(ch, webSocket.listener, webSocket.handshakeHeaders);
                                 }
                             });
+
+        client.booleanOptions.forEach(bootstrap::option);
+        client.integerOptions.forEach(bootstrap::option);
+
+        if (client.epollMode != null) {
+            bootstrap.option(EpollChannelOption.EPOLL_MODE, client.epollMode);
+        }
     }
 
     @Override
@@ -88,13 +94,17 @@ class ConnectTask implements Runnable {
         }
 
         listener.onBeforeOpen(webSocket);
-        webSocket.newConnection(bootstrap.connect(uri.getHost(), client.port).channel());
+        webSocket.newConnection(bootstrap.connect(client.remoteAddress).channel());
     }
 
-    void fillPipeline(final SocketChannel channel, final WebSocketListener listener,
+    void fillPipeline(final Channel channel, final WebSocketListener listener,
             final HttpHeaders handshakeHeaders) {
         final ChannelPipeline pipeline = channel.pipeline();
 
+        if (client.metrics != null) {
+            pipeline.addLast(client.metrics.channelHandler());
+        }
+
         if (client.sslContext != null) {
             pipeline.addLast(client.sslContext.newHandler(channel.alloc(), client.host, client.port));
         }
@@ -109,6 +119,6 @@ class ConnectTask implements Runnable {
 
         pipeline.addLast(new NotificationHandler(webSocket, WebSocketClientHandshakerFactory.newHandshaker(
                 uri, client.webSocketVersion, null, true, handshakeHeaders),
-                listener, client.logger));
+                listener, client.metrics, client.flightRecorder, client.logger));
     }
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.websocket.client.netty;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.joint.io.CharArea;
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.websocket.client.AbstractWebSocketClientException;
+import fir.needle.web.websocket.client.WebSocket;
+import fir.needle.web.websocket.client.WebSocketHandShaker;
+import fir.needle.web.websocket.client.WebSocketListener;
+
+final class MonitoredWebSocketListener implements WebSocketListener {
+    private final WebSocketListener delegate;
+    private final String url;
+    private final EventLoopMonitor monitor;
+
+    MonitoredWebSocketListener(final WebSocketListener delegate, final String url, final EventLoopMonitor monitor) {
+        this.delegate = delegate;
+        this.url = url;
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void onBeforeOpen(final WebSocketHandShaker handShaker) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBeforeOpen(handShaker);
+        } finally {
+            onCallbackFinished("onBeforeOpen", startedNanos);
+        }
+    }
+
+    @Override
+    public void onOpened(final WebSocket webSocket) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onOpened(webSocket);
+        } finally {
+            onCallbackFinished("onOpened", startedNanos);
+        }
+    }
+
+    @Override
+    public void onPing(final ByteArea message, final long startIndex, final long length) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onPing(message, startIndex, length);
+        } finally {
+            onCallbackFinished("onPing", startedNanos);
+        }
+    }
+
+    @Override
+    public void onPong(final ByteArea message, final long startIndex, final long length) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onPong(message, startIndex, length);
+        } finally {
+            onCallbackFinished("onPong", startedNanos);
+        }
+    }
+
+    @Override
+    public void onBinaryFrame(final ByteArea message, final long startIndex, final long length,
+            final boolean isFinalFragment) {
+
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onBinaryFrame(message, startIndex, length, isFinalFragment);
+        } finally {
+            onCallbackFinished("onBinaryFrame", startedNanos);
+        }
+    }
+
+    @Override
+    public void onTextFrame(final CharArea message, final long startIndex, final long length,
+            final boolean isFinalFragment) {
+
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onTextFrame(message, startIndex, length, isFinalFragment);
+        } finally {
+            onCallbackFinished("onTextFrame", startedNanos);
+        }
+    }
+
+    @Override
+    public void onCloseFrame(final CharArea message, final long startIndex, final long length,
+            final int statusCode) {
+
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onCloseFrame(message, startIndex, length, statusCode);
+        } finally {
+            onCallbackFinished("onCloseFrame", startedNanos);
+        }
+    }
+
+    @Override
+    public void onListenerError(final Throwable error) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onListenerError(error);
+        } finally {
+            onCallbackFinished("onListenerError", startedNanos);
+        }
+    }
+
+    @Override
+    public void onClosed(final WebSocket webSocket) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onClosed(webSocket);
+        } finally {
+            onCallbackFinished("onClosed", startedNanos);
+        }
+    }
+
+    @Override
+    public void onClosedByError(final WebSocket webSocket, final AbstractWebSocketClientException error) {
+        final long startedNanos = System.nanoTime();
+
+        try {
+            delegate.onClosedByError(webSocket, error);
+        } finally {
+            onCallbackFinished("onClosedByError", startedNanos);
+        }
+    }
+
+    private void onCallbackFinished(final String callback, final long startedNanos) {
+        final long durationNanos = System.nanoTime() - startedNanos;
+
+        if (durationNanos > monitor.slowCallbackThresholdNanos()) {
+            monitor.onSlowCallback(url, callback, durationNanos);
+        }
+    }
+}
@@ -78,15 +78,16 @@ class NettyWebSocket implements WebSocket, WebSocketHandShaker {
         this.path = path;
         this.query = query;
         this.handshakeHeaders = handshakeHeaders;
-        this.listener = listener;
         this.logger = client.logger;
 
         this.url = (client.sslContext == null ? "ws" : "wss") + "://" + client.host + ':' + client.port + path +
                 (query == null ? "" : '?' + query);
+        this.listener = client.eventLoopMonitor != null ?
+                new MonitoredWebSocketListener(listener, url, client.eventLoopMonitor) : listener;
 
         this.attemptsToReconnectLimit = client.numberOfReconnectAttempts;
         this.attemptsToReconnectLeft = client.numberOfReconnectAttempts;
-        this.connectTask = new ConnectTask(client, this, listener, logger);
+        this.connectTask = new ConnectTask(client, this, this.listener, logger);
     }
 
     @Override
@@ -469,6 +470,10 @@ class NettyWebSocket implements WebSocket, WebSocketHandShaker {
 
         }
 
+        if (client.metrics != null) {
+            client.metrics.onWebSocketReconnect();
+        }
+
         channel.eventLoop().schedule(connectTask, client.reconnectTimeoutMs, TimeUnit.MILLISECONDS);
     }
 
@@ -496,7 +501,8 @@ class NettyWebSocket implements WebSocket, WebSocketHandShaker {
 
     private ByteBuf msgToBytes(final ByteArea message, final long startIndex, final long length) {
         if (message instanceof NettyInputByteBuffer) {
-            return ((NettyInputByteBuffer) message).buffer().copy();
+            final ByteBuf buffer = ((NettyInputByteBuffer) message).buffer();
+            return buffer.copy(buffer.readerIndex() + (int) startIndex, (int) length);
         }
 
         final ByteBuf result = Unpooled.buffer((int) length);
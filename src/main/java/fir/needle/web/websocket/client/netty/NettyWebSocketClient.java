@@ -28,10 +28,18 @@ import fir.needle.joint.lang.Future;
 import fir.needle.joint.lang.VoidResult;
 import fir.needle.joint.logging.JulLogger;
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.FlightRecorder;
+import fir.needle.web.NettyMetrics;
+import fir.needle.web.NettyTransport;
 import fir.needle.web.websocket.client.WebSocketListener;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.unix.DomainSocketAddress;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
@@ -41,8 +49,12 @@ import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
 
 import javax.net.ssl.SSLException;
 import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -66,6 +78,15 @@ public final class NettyWebSocketClient implements AutoCloseable {
 
     final boolean isInternalEventLoopGroup;
     final EventLoopGroup eventLoopGroup;
+    final ByteBufAllocator allocator;
+    final NettyMetrics metrics;
+    final EventLoopMonitor eventLoopMonitor;
+    final FlightRecorder flightRecorder;
+    final SocketAddress remoteAddress;
+    final Class<? extends Channel> channelClass;
+    final EpollMode epollMode;
+    final Map<ChannelOption<Boolean>, Boolean> booleanOptions;
+    final Map<ChannelOption<Integer>, Integer> integerOptions;
     final Logger logger;
 
     private final Object lock = new Object();
@@ -86,6 +107,17 @@ public final class NettyWebSocketClient implements AutoCloseable {
         this.numberOfReconnectAttempts = builder.numberOfReconnectAttempts;
         this.isInternalEventLoopGroup = builder.isInternalEventLoopGroup;
         this.eventLoopGroup = builder.eventLoopGroup;
+        this.allocator = builder.allocator;
+        this.metrics = builder.metrics;
+        this.eventLoopMonitor = builder.eventLoopMonitor;
+        this.flightRecorder = builder.flightRecorder;
+        this.remoteAddress = builder.socketPath != null ? new DomainSocketAddress(builder.socketPath.toFile()) :
+                InetSocketAddress.createUnresolved(host, port);
+        this.channelClass = builder.socketPath != null ? builder.transport.domainSocketChannelClass() :
+                builder.transport.socketChannelClass();
+        this.epollMode = builder.transport == NettyTransport.EPOLL ? builder.epollMode : null;
+        this.booleanOptions = Collections.unmodifiableMap(builder.booleanOptions);
+        this.integerOptions = Collections.unmodifiableMap(builder.integerOptions);
         this.logger = builder.logger;
     }
 
@@ -181,11 +213,17 @@ public final class NettyWebSocketClient implements AutoCloseable {
     }
 
     public static class NettyWebSocketClientBuilder {
+        private static final int DEFAULT_WS_PORT = 80;
+        private static final int DEFAULT_WSS_PORT = 443;
+
         private WebSocketVersion webSocketVersion;
         private int numberOfWorkerThreads = 1;
+        private NettyTransport transport = NettyTransport.NIO;
+        private EpollMode epollMode;
 
         private String host;
         private int port;
+        private Path socketPath;
         private boolean isSslEnabled;
         private SslContext sslContext;
         private HttpHeaders handshakeHeaders = new DefaultHttpHeaders();
@@ -197,9 +235,15 @@ public final class NettyWebSocketClient implements AutoCloseable {
 
         private final Map<ChannelOption<Boolean>, Boolean> booleanOptions = new HashMap<>();
         private final Map<ChannelOption<Integer>, Integer> integerOptions = new HashMap<>();
+        private final Map<ChannelOption<Boolean>, Boolean> epollBooleanOptions = new HashMap<>();
+        private final Map<ChannelOption<Integer>, Integer> epollIntegerOptions = new HashMap<>();
 
         private boolean isInternalEventLoopGroup;
         private EventLoopGroup eventLoopGroup;
+        private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+        private NettyMetrics metrics;
+        private EventLoopMonitor eventLoopMonitor;
+        private FlightRecorder flightRecorder;
         private Logger logger;
 
         public NettyWebSocketClientBuilder() {
@@ -226,6 +270,36 @@ public final class NettyWebSocketClient implements AutoCloseable {
             return this;
         }
 
+        public NettyWebSocketClientBuilder withTransport(final NettyTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withNativeTransport() {
+            transport = NettyTransport.nativeOrNio();
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withTcpQuickAck() {
+            epollBooleanOptions.put(EpollChannelOption.TCP_QUICKACK, true);
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withTcpFastOpenConnect() {
+            epollBooleanOptions.put(EpollChannelOption.TCP_FASTOPEN_CONNECT, true);
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withBusyPoll(final int busyPollMicros) {
+            epollIntegerOptions.put(EpollChannelOption.SO_BUSY_POLL, busyPollMicros);
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withEpollMode(final EpollMode epollMode) {
+            this.epollMode = epollMode;
+            return this;
+        }
+
         //todo add ability to configure ssl (keystore etc.)
         public NettyWebSocketClientBuilder withSsl() {
             isSslEnabled = true;
@@ -277,11 +351,42 @@ public final class NettyWebSocketClient implements AutoCloseable {
             return this;
         }
 
+        public NettyWebSocketClientBuilder withAllocator(final ByteBufAllocator allocator) {
+            this.allocator = allocator;
+            return this;
+        }
+
+        public NettyWebSocketClientBuilder withMetrics(final NettyMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        // every listener callback is timed and the ones over the threshold of the monitor are reported to it
+        public NettyWebSocketClientBuilder withEventLoopMonitor(final EventLoopMonitor eventLoopMonitor) {
+            this.eventLoopMonitor = eventLoopMonitor;
+            return this;
+        }
+
+        // connection and frame events of every channel go to the recorder instead of the trace log
+        public NettyWebSocketClientBuilder withFlightRecorder(final FlightRecorder flightRecorder) {
+            this.flightRecorder = flightRecorder;
+            return this;
+        }
+
         public NettyWebSocketClientBuilder withLogger(final Logger logger) {
             this.logger = logger;
             return this;
         }
 
+        public NettyWebSocketClient build(final Path socketPath) {
+            return build(socketPath, "localhost", isSslEnabled ? DEFAULT_WSS_PORT : DEFAULT_WS_PORT);
+        }
+
+        public NettyWebSocketClient build(final Path socketPath, final String host, final int port) {
+            this.socketPath = socketPath;
+            return build(host, port);
+        }
+
         public NettyWebSocketClient build(final String host, final int port) {
             if (webSocketVersion == null) {
                 webSocketVersion = WebSocketVersion.V13;
@@ -290,6 +395,10 @@ public final class NettyWebSocketClient implements AutoCloseable {
             this.host = host;
             this.port = port;
 
+            if (socketPath != null && eventLoopGroup == null) {
+                transport = NettyTransport.forDomainSocket();
+            }
+
             try {
                 this.sslContext = isSslEnabled ? SslContextBuilder.forClient()
                         .trustManager(InsecureTrustManagerFactory.INSTANCE).build() : null;
@@ -299,13 +408,24 @@ public final class NettyWebSocketClient implements AutoCloseable {
 
             if (eventLoopGroup == null) {
                 isInternalEventLoopGroup = true;
-                eventLoopGroup = new NioEventLoopGroup(numberOfWorkerThreads);
+                eventLoopGroup = transport.newEventLoopGroup(numberOfWorkerThreads);
             }
 
             if (logger == null) {
                 logger = new JulLogger(java.util.logging.Logger.getLogger(NettyWebSocketClient.class.getSimpleName()));
             }
 
+            transport = NettyTransport.of(eventLoopGroup);
+
+            if (transport == NettyTransport.EPOLL) {
+                booleanOptions.putAll(epollBooleanOptions);
+                integerOptions.putAll(epollIntegerOptions);
+            } else if (!epollBooleanOptions.isEmpty() || !epollIntegerOptions.isEmpty() || epollMode != null) {
+                if (logger.isInfoEnabled()) {
+                    logger.info("Epoll specific options are ignored for the " + transport + " transport");
+                }
+            }
+
             return new NettyWebSocketClient(this);
         }
     }
@@ -27,6 +27,9 @@ import fir.needle.joint.io.ByteToCharArea;
 import fir.needle.joint.io.CharArea;
 import fir.needle.joint.io.CharSequenceToCharArea;
 import fir.needle.joint.logging.Logger;
+import fir.needle.web.FlightEvent;
+import fir.needle.web.FlightRecorder;
+import fir.needle.web.NettyMetrics;
 import fir.needle.web.http.client.netty.NettyInputByteBuffer;
 import fir.needle.web.websocket.client.AbstractWebSocketClientException;
 import fir.needle.web.websocket.client.WebSocketClientException;
@@ -62,6 +65,8 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
 
     private final WebSocketClientHandshaker handShaker;
     private final WebSocketListener listener;
+    private final NettyMetrics metrics;
+    private final FlightRecorder recorder;
     private final Logger logger;
 
     private final CharSequenceToCharArea messageAdapter = new CharSequenceToCharArea();
@@ -75,23 +80,19 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
     private int closeFrameTextSize;
 
     NotificationHandler(final NettyWebSocket webSocket, final WebSocketClientHandshaker handShaker,
-            final WebSocketListener listener, final Logger logger) {
+            final WebSocketListener listener, final NettyMetrics metrics, final FlightRecorder recorder,
+            final Logger logger) {
 
         this.webSocket = webSocket;
         this.handShaker = handShaker;
         this.listener = listener;
+        this.metrics = metrics;
+        this.recorder = recorder;
         this.logger = logger;
     }
 
     @Override
     protected void channelRead0(final ChannelHandlerContext ctx, final Object msg) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRead0 for " + webSocket.url() + " in the channel " +
-                            ctx.channel().id() + " and in the thread " + Thread.currentThread());
-
-        }
-
         if (!handShaker.isHandshakeComplete()) {
             finishHandshake(ctx, msg);
             return;
@@ -114,54 +115,30 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } else if (frame instanceof CloseWebSocketFrame) {
             processCloseWebSocketFrame(ctx, (CloseWebSocketFrame) frame);
         }
-
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelRead0 for " + webSocket.url() + " finished in the channel " +
-                            ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
     }
 
     @Override
     public void channelRegistered(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() + ".channelRegistered for " + webSocket.url() +
-                    " in the channel " +
-                    ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_REGISTERED, 0);
 
         webSocket.confirmWsIsOpened();
     }
 
     @Override
     public void channelActive(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() + ".channelActive connection for " + webSocket.url() +
-                    " has been established in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread() + ". Trying to initiate handshake");
-        }
+        record(ctx, FlightEvent.CHANNEL_ACTIVE, 0);
 
         handShaker.handshake(ctx.channel());
     }
 
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelInactive disconnected from host for " + webSocket.url() +
-                            " in the channel " + ctx.channel().id() + " and in the thread " +
-                            Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_INACTIVE, 0);
     }
 
     @Override
     public void channelUnregistered(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".channelUnregistered for " + webSocket.url() +
-                            " in the channel " +
-                            ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.CHANNEL_UNREGISTERED, 0);
 
         if (error != null) {
             try {
@@ -182,11 +159,8 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
 
     @Override
     public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(
-                    getClass().getSimpleName() + ".exceptionCaught for " + webSocket.url() +
-                            " in the channel " +
-                            ctx.channel().id() + " and in the thread " + Thread.currentThread(), cause);
+        if (recorder != null) {
+            recorder.recordError(ctx.channel(), cause);
         }
 
 
@@ -202,12 +176,6 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
     }
 
     private void finishHandshake(final ChannelHandlerContext ctx, final Object msg) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() + ".finishHandshake for " + webSocket.url() +
-                    " in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread());
-        }
-
         if (webSocket.isClosed()) {
             return;
         }
@@ -215,45 +183,28 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         try {
             handShaker.finishHandshake(ctx.channel(), (FullHttpResponse) msg);
 
-            if (logger.isTraceEnabled()) {
-                logger.trace(getClass().getSimpleName() + ".finishHandshake the handshake for " + webSocket.url() +
-                        " has been completed in the channel " + ctx.channel().id() + " and in the thread " +
-                        Thread.currentThread());
-            }
+            record(ctx, FlightEvent.WS_HANDSHAKE_FINISHED, 0);
 
             try {
                 listener.onOpened(webSocket);
             } catch (final Exception | AssertionError e) {
                 logger.trace("Error while onOpened notification", e);
 
-                try {
-                    listener.onListenerError(e);
-                } catch (final Exception | AssertionError er) {
-                    logger.error("Error while onListenerError notification", er);
-                }
+                notifyListenerError(e);
             }
         } catch (final WebSocketHandshakeException e) {
             logger.error(
                     getClass().getSimpleName() + ".finishHandshake for " + webSocket.url() + " in the channel " +
                             ctx.channel().id() + " and in the thread " + Thread.currentThread(), e);
 
-            if (logger.isTraceEnabled()) {
-                logger.trace(getClass().getSimpleName() + ".finishHandshake The handshake for " + webSocket.url() +
-                        " has been failed in the channel " + ctx.channel().id() + " and in the thread " +
-                        Thread.currentThread());
-            }
+            record(ctx, FlightEvent.WS_HANDSHAKE_FAILED, 0);
 
             ctx.close();
         }
     }
 
     private void processPingWebSocketFrame(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processPingWebSocketFrame PingWebSocketFrame has been received for " + webSocket.url() +
-                    " in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_PING, readableBytes);
 
         if (webSocket.isClosed()) {
             return;
@@ -264,21 +215,12 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onPing notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
     }
 
     private void processPongWebSocketFrame(final ChannelHandlerContext ctx) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processPongWebSocketFrame PongWebSocketFrame has been received for " + webSocket.url() +
-                    " in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_PONG, readableBytes);
 
         if (webSocket.isClosed()) {
             return;
@@ -289,21 +231,12 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onPong notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
     }
 
     private void processBinaryWebSocketFrame(final ChannelHandlerContext ctx, final BinaryWebSocketFrame frame) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processBinaryWebSocketFrame BinaryWebSocketFrame has been received for " + webSocket.url() +
-                    " in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_BINARY_FRAME, readableBytes);
 
         if (webSocket.isClosed()) {
             return;
@@ -316,21 +249,13 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onBinaryFrame notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
 
     }
 
     private void processTextWebSocketFrame(final ChannelHandlerContext ctx, final TextWebSocketFrame frame) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processTextWebSocketFrame TextWebSocketFrame has been received for " + webSocket.url() +
-                    " in the channel " + ctx.channel().id() + " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_TEXT_FRAME, readableBytes);
 
         if (webSocket.isClosed()) {
             return;
@@ -343,11 +268,7 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onTextFrame notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
     }
 
@@ -355,12 +276,7 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
             final ContinuationWebSocketFrame frame) {
 
         if (wasLastMsgBinary) {
-            if (logger.isTraceEnabled()) {
-                logger.trace(getClass().getSimpleName() +
-                        ".processContinuationWebSocketFrame ContinuationWebSocketFrame with binary " +
-                        "data has been received for " + webSocket.url() + " in the channel " + ctx.channel().id() +
-                        " and in the thread " + Thread.currentThread());
-            }
+            record(ctx, FlightEvent.WS_CONTINUATION_FRAME, readableBytes);
 
             if (webSocket.isClosed()) {
                 return;
@@ -373,22 +289,13 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
                     logger.trace("Error while onContinue notification", e);
                 }
 
-                try {
-                    listener.onListenerError(e);
-                } catch (final Exception | AssertionError er) {
-                    logger.error("Error while onListenerError notification", er);
-                }
+                notifyListenerError(e);
             }
 
             return;
         }
 
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processContinuationWebSocketFrame ContinuationWebSocketFrame with text " +
-                    "data has been received for " + webSocket.url() + " in the channel " + ctx.channel().id() +
-                    " and in the thread " + Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_CONTINUATION_FRAME, readableBytes);
 
         if (webSocket.isClosed()) {
             return;
@@ -399,21 +306,12 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onContinue notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
     }
 
     private void processCloseWebSocketFrame(final ChannelHandlerContext ctx, final CloseWebSocketFrame frame) {
-        if (logger.isTraceEnabled()) {
-            logger.trace(getClass().getSimpleName() +
-                    ".processCloseWebSocketFrame CloseWebSocketFrame has been received for " +
-                    webSocket.url() + " in the channel " + ctx.channel().id() + " and in the thread " +
-                    Thread.currentThread());
-        }
+        record(ctx, FlightEvent.WS_CLOSE_FRAME, frame.statusCode());
 
         closeFrameStatusCode = frame.statusCode();
         closeFrameByteText.setBuffer(frame.content().copy());
@@ -426,11 +324,7 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
         } catch (final Exception | AssertionError e) {
             logger.trace("Error while onCloseFrame notification", e);
 
-            try {
-                listener.onListenerError(e);
-            } catch (final Exception | AssertionError er) {
-                logger.error("Error while onListenerError notification", er);
-            }
+            notifyListenerError(e);
         }
 
         if (webSocket.isClosed()) {
@@ -442,4 +336,22 @@ class NotificationHandler extends SimpleChannelInboundHandler<Object> {
 
         ctx.channel().close();
     }
-}
\ No newline at end of file
+
+    private void notifyListenerError(final Throwable error) {
+        if (metrics != null) {
+            metrics.onListenerError();
+        }
+
+        try {
+            listener.onListenerError(error);
+        } catch (final Exception | AssertionError e) {
+            logger.error("Error while onListenerError notification", e);
+        }
+    }
+
+    private void record(final ChannelHandlerContext ctx, final FlightEvent event, final long value) {
+        if (recorder != null) {
+            recorder.record(event, ctx.channel(), value);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+
+class FlightRecorderTest {
+
+    @Test
+    void testDumpIsOldestFirst() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final FlightRecorder recorder = FlightRecorder.builder().withCapacity(8).build();
+
+        recorder.record(FlightEvent.CHANNEL_ACTIVE, channel);
+        recorder.record(FlightEvent.RESPONSE_STARTED, channel, 200);
+        recorder.record(FlightEvent.RESPONSE_CONTENT, channel, 512);
+
+        final List<FlightEvent> events = new ArrayList<>();
+        final List<Long> values = new ArrayList<>();
+        recorder.dump((nanoTime, event, channelId, value) -> {
+            assertEquals(channel.id().hashCode(), channelId);
+            events.add(event);
+            values.add(value);
+        });
+
+        assertEquals(3, events.size());
+        assertEquals(FlightEvent.CHANNEL_ACTIVE, events.get(0));
+        assertEquals(FlightEvent.RESPONSE_STARTED, events.get(1));
+        assertEquals(200L, (long) values.get(1));
+        assertEquals(512L, (long) values.get(2));
+        assertTrue(recorder.dump().contains(channel.id().asShortText() + " RESPONSE_CONTENT 512"));
+    }
+
+    @Test
+    void testOnlyTheLatestRecordsAreKept() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final FlightRecorder recorder = FlightRecorder.builder().withCapacity(5).build();
+
+        assertEquals(8, recorder.capacity());
+
+        for (int i = 0; i < 20; i++) {
+            recorder.record(FlightEvent.WS_TEXT_FRAME, channel, i);
+        }
+
+        final List<Long> values = new ArrayList<>();
+        recorder.dump((nanoTime, event, channelId, value) -> values.add(value));
+
+        assertEquals(8, values.size());
+        assertEquals(12L, (long) values.get(0));
+        assertEquals(19L, (long) values.get(7));
+    }
+
+    @Test
+    void testErrorTriggersDump() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        final List<FlightEvent> dumped = new ArrayList<>();
+        final FlightRecorder recorder = FlightRecorder.builder()
+                .withErrorDump((nanoTime, event, channelId, value) -> dumped.add(event))
+                .build();
+
+        recorder.record(FlightEvent.CHANNEL_ACTIVE, channel);
+        recorder.recordError(channel, new IllegalStateException());
+
+        assertEquals(2, dumped.size());
+        assertEquals(FlightEvent.EXCEPTION, dumped.get(1));
+    }
+}
@@ -24,6 +24,7 @@
 package fir.needle.web;
 
 import fir.needle.joint.lang.Cancelable;
+import io.netty.buffer.ByteBuf;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
@@ -32,6 +33,9 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class NettyWebClientTest {
     private static final int TEST_TIMEOUT_SECONDS = 3;
@@ -108,6 +112,51 @@ class NettyWebClientTest {
         }
     }
 
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testConfiguredAllocatorIsSharedAndReportsMetrics() throws Exception {
+        final NettyAllocator allocator = NettyAllocator.builder()
+                .withDirectBuffers()
+                .withArenas(2)
+                .withPageSize(4096)
+                .withMaxOrder(4)
+                .build();
+
+        try (NettyWebClient nettyWebClient = new NettyWebClient(1, NettyTransport.NIO, allocator)) {
+            assertSame(allocator, nettyWebClient.allocator());
+            assertEquals(2, allocator.metric().numDirectArenas());
+            assertEquals(2, allocator.metric().numHeapArenas());
+            assertEquals(4096 << 4, allocator.metric().chunkSize());
+            assertEquals(0, allocator.usedDirectMemory());
+
+            final ByteBuf buffer = allocator.allocator().buffer(1024);
+            try {
+                assertTrue(buffer.isDirect());
+                assertEquals(4096 << 4, allocator.usedDirectMemory());
+            } finally {
+                buffer.release();
+            }
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testScheduledTasksAreReportedAsGauge() throws Exception {
+        try (NettyWebClient nettyWebClient = new NettyWebClient()) {
+            final Cancelable first = nettyWebClient.schedule(() -> { }, 1000);
+            final Cancelable second = nettyWebClient.schedule(() -> { }, 1000);
+
+            assertEquals(2, nettyWebClient.metrics().scheduledTasks());
+
+            first.cancel();
+            first.cancel();
+            assertEquals(1, nettyWebClient.metrics().scheduledTasks());
+
+            second.cancel();
+            assertEquals(0, nettyWebClient.metrics().scheduledTasks());
+        }
+    }
+
     @Test
     @Timeout(TEST_TIMEOUT_SECONDS * 30)
     @Disabled
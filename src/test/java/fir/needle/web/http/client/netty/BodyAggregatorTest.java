@@ -0,0 +1,196 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+
+class BodyAggregatorTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+    private static final int BODY_SIZE = 200_000;
+    private static final int SERVER_CHUNK_SIZE = 7_000;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+    private final byte[] content = new byte[BODY_SIZE];
+
+    private EventLoopGroup serverGroup;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        new Random(11).nextBytes(content);
+
+        serverGroup = new NioEventLoopGroup(1);
+        new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new DownloadHandler());
+                    }
+                })
+                .bind(PORT).sync();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testSizedBodyIsDeliveredInPreallocatedBuffer() throws InterruptedException {
+        final AggregateListener listener = receive("/sized", Integer.MAX_VALUE);
+
+        assertArrayEquals(content, listener.body);
+        assertTrue(listener.wasPreallocated);
+        assertEquals(0, listener.buffer.get().refCnt());
+        assertNull(listener.error);
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testChunkedBodyIsDeliveredInCompositeBuffer() throws InterruptedException {
+        final AggregateListener listener = receive("/chunked", Integer.MAX_VALUE);
+
+        assertArrayEquals(content, listener.body);
+        assertTrue(listener.buffer.get() instanceof CompositeByteBuf);
+        assertEquals(0, listener.buffer.get().refCnt());
+        assertNull(listener.error);
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testBodyOverLimitIsReportedAndNotDelivered() throws InterruptedException {
+        final AggregateListener sized = receive("/sized", BODY_SIZE - 1);
+        assertNull(sized.body);
+        assertTrue(sized.error instanceof IllegalStateException);
+
+        final AggregateListener chunked = receive("/chunked", BODY_SIZE - 1);
+        assertNull(chunked.body);
+        assertTrue(chunked.error instanceof IllegalStateException);
+    }
+
+    private AggregateListener receive(final String path, final int maxBodySize) throws InterruptedException {
+        final AggregateListener listener = new AggregateListener();
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            client.get(path, BodyAggregator.<Get>builder((request, body, length) -> {
+                listener.buffer.set(((NettyInputByteBuffer) body).buffer());
+                listener.wasPreallocated = listener.buffer.get().capacity() == BODY_SIZE;
+                listener.body = new byte[(int) length];
+                ((NettyInputByteBuffer) body).getBytes(0, listener.body, 0, (int) length);
+            })
+                    .withMaxBodySize(maxBodySize)
+                    .withListener(listener)
+                    .build());
+
+            listener.finishSignal.await();
+        }
+
+        return listener;
+    }
+
+    private static final class AggregateListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final CountDownLatch finishSignal = new CountDownLatch(1);
+        final AtomicReference<ByteBuf> buffer = new AtomicReference<>();
+        volatile byte[] body;
+        volatile boolean wasPreallocated;
+        volatile Throwable error;
+
+        @Override
+        public void onListenerError(final Throwable error) {
+            this.error = error;
+        }
+
+        @Override
+        public void onResponseFinished() {
+            finishSignal.countDown();
+        }
+    }
+
+    private final class DownloadHandler extends SimpleChannelInboundHandler<HttpRequest> {
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final HttpRequest msg) {
+            final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+
+            if (msg.uri().startsWith("/chunked")) {
+                HttpUtil.setTransferEncodingChunked(response, true);
+            } else {
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, BODY_SIZE);
+            }
+
+            ctx.write(response);
+
+            for (int offset = 0; offset < BODY_SIZE; offset += SERVER_CHUNK_SIZE) {
+                final int length = Math.min(SERVER_CHUNK_SIZE, BODY_SIZE - offset);
+                ctx.write(new DefaultHttpContent(Unpooled.wrappedBuffer(content, offset, length)));
+            }
+
+            ctx.writeAndFlush(new DefaultLastHttpContent());
+        }
+    }
+}
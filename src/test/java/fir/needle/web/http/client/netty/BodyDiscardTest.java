@@ -0,0 +1,236 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.Head;
+import fir.needle.web.http.client.HttpRequest;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class BodyDiscardTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final String PLAIN_BODY = "plain body";
+    private static final int HEAD_CONTENT_LENGTH = 100;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testDiscardedBodyIsNeitherInflatedNorDispatched() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch responsesSignal = new CountDownLatch(2);
+        final EventsListener<Get> discardingListener = new EventsListener<>(responsesSignal);
+        final EventsListener<Get> readingListener = new EventsListener<>(responsesSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            startServer(serverGroup);
+
+            client.prepareGet("/corrupted")
+                    .withHeader("host", "localhost")
+                    .withDiscardedBody()
+                    .addToChain(discardingListener)
+                    .prepareGet("/plain")
+                    .withHeader("host", "localhost")
+                    .send(readingListener);
+
+            responsesSignal.await();
+
+            // the gzip body is garbage, inflating it would have been reported as an error
+            assertEquals("200|content-encoding: gzip|content-length: 8|finished|",
+                    discardingListener.events.toString());
+            assertEquals("200|content-length: " + PLAIN_BODY.length() + "|body:" + PLAIN_BODY + "|finished|",
+                    readingListener.events.toString());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testHeadResponseHasNoBody() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch responsesSignal = new CountDownLatch(2);
+        final EventsListener<Head> headListener = new EventsListener<>(responsesSignal);
+        final EventsListener<Get> readingListener = new EventsListener<>(responsesSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            startServer(serverGroup);
+
+            client.prepareHead("/plain")
+                    .withHeader("host", "localhost")
+                    .withHeaderInterest("content-length")
+                    .addToChain(headListener)
+                    .prepareGet("/plain")
+                    .withHeader("host", "localhost")
+                    .send(readingListener);
+
+            responsesSignal.await();
+
+            assertEquals("200|content-length: " + HEAD_CONTENT_LENGTH + "|body:|finished|",
+                    headListener.events.toString());
+            assertEquals("200|content-length: " + PLAIN_BODY.length() + "|body:" + PLAIN_BODY + "|finished|",
+                    readingListener.events.toString());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    private static void startServer(final EventLoopGroup serverGroup) throws InterruptedException {
+        new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new BodiesHandler());
+                    }
+                })
+                .bind(PORT).sync();
+    }
+
+    private static final class BodiesHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof io.netty.handler.codec.http.HttpRequest)) {
+                return;
+            }
+
+            final io.netty.handler.codec.http.HttpRequest request = (io.netty.handler.codec.http.HttpRequest) msg;
+
+            final FullHttpResponse response;
+
+            if (HttpMethod.HEAD.equals(request.method())) {
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, HEAD_CONTENT_LENGTH);
+            } else if ("/corrupted".equals(request.uri())) {
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                        Unpooled.wrappedBuffer(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+                response.headers().set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP);
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 8);
+            } else {
+                final byte[] body = PLAIN_BODY.getBytes(StandardCharsets.US_ASCII);
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                        Unpooled.wrappedBuffer(body));
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+            }
+
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class EventsListener<R extends HttpRequest> extends SingleConnectSingleDisconnectAdapter<R> {
+        final StringBuilder events = new StringBuilder();
+        final CountDownLatch responsesSignal;
+
+        private EventsListener(final CountDownLatch responsesSignal) {
+            this.responsesSignal = responsesSignal;
+        }
+
+        @Override
+        public void onResponseStarted(final R request, final int code) {
+            events.append(code).append('|');
+        }
+
+        @Override
+        public void onHeader(final CharSequence key, final CharSequence value) {
+            events.append(key).append(": ").append(value).append('|');
+        }
+
+        @Override
+        public void onBodyStarted() {
+            events.append("body:");
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < startIndex + length; i++) {
+                events.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        public void onBodyFinished() {
+            events.append('|');
+        }
+
+        @Override
+        public void onResponseFinished() {
+            events.append("finished|");
+            responsesSignal.countDown();
+        }
+
+        @Override
+        public void onListenerError(final Throwable error) {
+            events.append("error|");
+        }
+
+        @Override
+        protected void onDoDisconnectedByError(final R request, final AbstractHttpClientException error) {
+            events.append("disconnected by error|");
+            responsesSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.joint.lang.Cancelable;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.ScheduledGet;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class ConditionalPollingTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final String ENTITY_TAG = "\"v1\"";
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testUnchangedResourceIsReportedAsNotModified() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch notModifiedSignal = new CountDownLatch(2);
+        final PollListener listener = new PollListener(notModifiedSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new EntityTagHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final Cancelable poll = client.prepareGet("/resource")
+                    .withHeader("host", "localhost")
+                    .withHeader("connection", "keep-alive")
+                    .withConditionalPolling()
+                    .schedule(50, listener);
+
+            notModifiedSignal.await();
+            poll.cancel();
+
+            assertEquals(1, listener.fullResponses);
+            assertEquals("body", listener.body.toString());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testValidatorsAreTrackedOutsideHeaderInterest() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch notModifiedSignal = new CountDownLatch(1);
+        final PollListener listener = new PollListener(notModifiedSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new EntityTagHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final Cancelable poll = client.prepareGet("/resource")
+                    .withHeader("host", "localhost")
+                    .withHeader("connection", "keep-alive")
+                    .withHeaderInterest("content-type")
+                    .withConditionalPolling()
+                    .schedule(50, listener);
+
+            notModifiedSignal.await();
+            poll.cancel();
+
+            assertEquals(1, listener.fullResponses);
+            assertFalse(listener.headers.contains("etag"));
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testValidatorMissingFromFullResponseIsDropped() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final DroppedTagHandler handler = new DroppedTagHandler();
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(handler);
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final Cancelable poll = client.prepareGet("/resource")
+                    .withHeader("host", "localhost")
+                    .withHeader("connection", "keep-alive")
+                    .withConditionalPolling()
+                    .schedule(50, new PollListener(new CountDownLatch(1)));
+
+            handler.requestsSignal.await();
+            poll.cancel();
+
+            // the first response had an entity tag, the second one had none, so the third poll is unconditional
+            assertEquals(Arrays.asList(null, ENTITY_TAG, null), handler.entityTags.subList(0, 3));
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class DroppedTagHandler extends ChannelInboundHandlerAdapter {
+        final List<String> entityTags = new CopyOnWriteArrayList<>();
+        final CountDownLatch requestsSignal = new CountDownLatch(3);
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            entityTags.add(((HttpRequest) msg).headers().get(HttpHeaderNames.IF_NONE_MATCH));
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+
+            if (entityTags.size() == 1) {
+                response.headers().set(HttpHeaderNames.ETAG, ENTITY_TAG);
+            }
+
+            ctx.writeAndFlush(response);
+            requestsSignal.countDown();
+        }
+    }
+
+    private static final class EntityTagHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final FullHttpResponse response;
+
+            if (ENTITY_TAG.equals(((HttpRequest) msg).headers().get(HttpHeaderNames.IF_NONE_MATCH))) {
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NOT_MODIFIED);
+            } else {
+                final byte[] body = "body".getBytes(StandardCharsets.US_ASCII);
+                response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                        Unpooled.wrappedBuffer(body));
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+            }
+
+            response.headers().set(HttpHeaderNames.ETAG, ENTITY_TAG);
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class PollListener extends SingleConnectSingleDisconnectAdapter<ScheduledGet> {
+        final StringBuilder body = new StringBuilder();
+        final List<String> headers = new CopyOnWriteArrayList<>();
+        final CountDownLatch notModifiedSignal;
+        volatile int fullResponses;
+
+        private PollListener(final CountDownLatch notModifiedSignal) {
+            this.notModifiedSignal = notModifiedSignal;
+        }
+
+        @Override
+        public void onHeader(final CharSequence key, final CharSequence value) {
+            headers.add(key.toString().toLowerCase());
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < startIndex + length; i++) {
+                body.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        public void onResponseFinished() {
+            fullResponses++;
+        }
+
+        @Override
+        public void onNotModified(final ScheduledGet request) {
+            notModifiedSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+class ConnectionPoolTest {
+    private static final String EOL = "\r\n";
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testSequentialGetsReuseOneConnection() {
+        final String firstRequest = "GET /first HTTP/1.1" + EOL +
+                "host: localhost" + EOL +
+                "connection: keep-alive" + EOL +
+                "accept-encoding: gzip" + EOL +
+                EOL;
+
+        final String secondRequest = "GET /second HTTP/1.1" + EOL +
+                "host: localhost" + EOL +
+                "connection: keep-alive" + EOL +
+                "accept-encoding: gzip" + EOL +
+                EOL;
+
+        final List<Integer> numberOfBytesToReceive = new ArrayList<>();
+        numberOfBytesToReceive.add(firstRequest.length());
+        numberOfBytesToReceive.add(secondRequest.length());
+
+        // the echo server accepts exactly one connection, so the second get succeeds only if it is reused
+        final CountDownLatch isServerUpSignal = new CountDownLatch(1);
+        final EchoServer echoServer = new EchoServer(PORT, numberOfBytesToReceive, isServerUpSignal);
+
+        final CountDownLatch firstCompleteSignal = new CountDownLatch(1);
+        final ResponseAsStringListener firstListener = new ResponseAsStringListener(firstCompleteSignal);
+
+        final CountDownLatch secondCompleteSignal = new CountDownLatch(1);
+        final ResponseAsStringListener secondListener = new ResponseAsStringListener(secondCompleteSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withConnectionPool()
+                .withMaxConnectionsPerHost(1)
+                .build("localhost", PORT)) {
+
+            echoServer.start();
+            isServerUpSignal.await();
+
+            client.get("/first", firstListener);
+            firstCompleteSignal.await();
+
+            client.get("/second", secondListener);
+            secondCompleteSignal.await();
+
+            assertEquals(secondRequest, echoServer.receivedMessage);
+            assertEquals(echoServer.sentMessage, secondListener.serverResponse.toString());
+            assertEquals(1, firstListener.disconnects);
+
+            echoServer.join();
+        } catch (final InterruptedException e) {
+            echoServer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ResponseAsStringListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final StringBuilder serverResponse = new StringBuilder();
+        final CountDownLatch parsingCompleteSignal;
+        volatile int disconnects;
+
+        private ResponseAsStringListener(final CountDownLatch parsingCompleteSignal) {
+            this.parsingCompleteSignal = parsingCompleteSignal;
+        }
+
+        @Override
+        public void onResponseStarted(final Get request, final int code) {
+            serverResponse.append("HTTP/1.1 ")
+                    .append(HttpResponseStatus.valueOf(code))
+                    .append(EOL);
+        }
+
+        @Override
+        public void onHeader(final CharSequence key, final CharSequence value) {
+            serverResponse.append(key)
+                    .append(": ")
+                    .append(value)
+                    .append(EOL);
+        }
+
+        @Override
+        public void onBodyStarted() {
+            serverResponse.append(EOL);
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < length; i++) {
+                serverResponse.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        protected void onDoDisconnected(final Get request) {
+            disconnects++;
+            parsingCompleteSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.MessageToMessageDecoder;
+import io.netty.handler.codec.compression.ZlibCodecFactory;
+import io.netty.handler.codec.compression.ZlibWrapper;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class ContentEncodingTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final String BODY = "Hello, encoded world!";
+
+    private static final ContentDecoderFactory FLIP = ContentDecoderFactory.of("x-flip", FlipDecoder::new);
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    private static byte[] flip(final byte[] bytes) {
+        final byte[] result = new byte[bytes.length];
+        for (int i = 0; i < bytes.length; i++) {
+            result[i] = (byte) ~bytes[i];
+        }
+        return result;
+    }
+
+    private static String decode(final ResponseDecompressor decompressor, final String contentEncoding,
+            final byte[] body) {
+
+        final EmbeddedChannel channel = new EmbeddedChannel(decompressor);
+
+        final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        response.headers().set(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
+        channel.writeInbound(response, new DefaultLastHttpContent(Unpooled.wrappedBuffer(body)));
+        channel.finish();
+
+        final StringBuilder result = new StringBuilder();
+        Object msg;
+        while ((msg = channel.readInbound()) != null) {
+            if (msg instanceof HttpContent) {
+                result.append(((HttpContent) msg).content().toString(StandardCharsets.ISO_8859_1));
+            }
+            ReferenceCountUtil.release(msg);
+        }
+
+        return result.toString();
+    }
+
+    @Test
+    void testRegisteredDecoderIsUsed() {
+        final ResponseDecompressor decompressor = new ResponseDecompressor(new ContentDecoderFactory[] {FLIP});
+
+        assertEquals(BODY, decode(decompressor, "X-Flip", flip(BODY.getBytes(StandardCharsets.US_ASCII))));
+    }
+
+    @Test
+    void testGzipFallsBackToBuiltInDecoder() {
+        final EmbeddedChannel encoder = new EmbeddedChannel(ZlibCodecFactory.newZlibEncoder(ZlibWrapper.GZIP));
+        encoder.writeOutbound(Unpooled.copiedBuffer(BODY, StandardCharsets.US_ASCII));
+        encoder.finish();
+
+        final ByteBuf compressed = Unpooled.buffer();
+        ByteBuf chunk;
+        while ((chunk = encoder.readOutbound()) != null) {
+            compressed.writeBytes(chunk);
+            chunk.release();
+        }
+
+        final byte[] gzipped = new byte[compressed.readableBytes()];
+        compressed.readBytes(gzipped);
+
+        assertEquals(BODY, decode(new ResponseDecompressor(new ContentDecoderFactory[0]), "gzip", gzipped));
+    }
+
+    @Test
+    void testBypassedAndUnknownEncodingsPassAsTheyAre() {
+        final byte[] flipped = flip(BODY.getBytes(StandardCharsets.US_ASCII));
+        final String raw = new String(flipped, StandardCharsets.ISO_8859_1);
+
+        assertEquals(raw, decode(new ResponseDecompressor(new ContentDecoderFactory[0]), "x-flip", flipped));
+
+        final ResponseDecompressor bypassed = new ResponseDecompressor(new ContentDecoderFactory[] {FLIP});
+        bypassed.bypass(true);
+        assertEquals(raw, decode(bypassed, "x-flip", flipped));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testAcceptEncodingIsNegotiatedPerClientAndPerRequest() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final BlockingQueue<String> bodies = new ArrayBlockingQueue<>(2);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withAcceptEncoding(FLIP, ContentDecoderFactory.GZIP)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new FlippingHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            client.get("/negotiated", new BodyListener(bodies));
+            assertEquals("x-flip, gzip", bodies.take());
+
+            client.prepareGet("/identity")
+                    .withHeader("host", "localhost")
+                    .withAcceptEncoding("identity")
+                    .send(new BodyListener(bodies));
+            assertEquals("identity", bodies.take());
+            assertTrue(bodies.isEmpty());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    private static final class FlipDecoder extends MessageToMessageDecoder<ByteBuf> {
+        @Override
+        protected void decode(final ChannelHandlerContext ctx, final ByteBuf msg, final List<Object> out) {
+            final ByteBuf result = ctx.alloc().buffer(msg.readableBytes());
+            while (msg.isReadable()) {
+                result.writeByte(~msg.readByte());
+            }
+            out.add(result);
+        }
+    }
+
+    // answers with the accept-encoding it got, flipped when the client accepts that
+    private static final class FlippingHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final String acceptEncoding = ((HttpRequest) msg).headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+            final boolean isFlipped = acceptEncoding.contains("x-flip");
+
+            final byte[] body = acceptEncoding.getBytes(StandardCharsets.US_ASCII);
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK, Unpooled.wrappedBuffer(isFlipped ? flip(body) : body));
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+            if (isFlipped) {
+                response.headers().set(HttpHeaderNames.CONTENT_ENCODING, "x-flip");
+            }
+
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class BodyListener extends SingleConnectSingleDisconnectAdapter<Get> {
+
+        private final StringBuilder body = new StringBuilder();
+        private final BlockingQueue<String> bodies;
+
+        private BodyListener(final BlockingQueue<String> bodies) {
+            this.bodies = bodies;
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < startIndex + length; i++) {
+                body.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        public void onResponseFinished() {
+            bodies.add(body.toString());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.EventLoopMonitor;
+import fir.needle.web.EventLoopMonitorListener;
+import fir.needle.web.NettyWebClient;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class EventLoopMonitorTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final int SLOW_CALLBACK_MS = 50;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testSlowCallbackIsReportedWithUrlAndCallbackName() throws Exception {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final CountDownLatch slowCallbackSignal = new CountDownLatch(1);
+        final AtomicReference<String> slowCallback = new AtomicReference<>();
+
+        final EventLoopMonitor monitor = EventLoopMonitor.builder()
+                .withSlowCallbackThreshold(SLOW_CALLBACK_MS / 2, TimeUnit.MILLISECONDS)
+                .withLagThreshold(1, TimeUnit.HOURS)
+                .withListener(new EventLoopMonitorListener() {
+                    @Override
+                    public void onSlowCallback(final String url, final String callback, final long durationNanos) {
+                        if ("onResponseStarted".equals(callback)) {
+                            slowCallback.set(url);
+                            slowCallbackSignal.countDown();
+                        }
+                    }
+
+                    @Override
+                    public void onEventLoopLag(final String eventLoop, final long lagNanos, final int pendingTasks) {
+                        //
+                    }
+                })
+                .build();
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new EmptyBodyHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            webClient.monitorEventLoops(monitor, 10);
+
+            final NettyHttpClient client = webClient.httpClientBuilder()
+                    .withLogger(testLogger)
+                    .build("localhost", PORT);
+
+            client.prepareGet("/slow")
+                    .withHeader("host", "localhost")
+                    .send(new SingleConnectSingleDisconnectAdapter<Get>() {
+                        @Override
+                        public void onResponseStarted(final Get request, final int code) {
+                            try {
+                                Thread.sleep(SLOW_CALLBACK_MS);
+                            } catch (final InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                        }
+                    });
+
+            slowCallbackSignal.await();
+
+            assertEquals("localhost:" + PORT + "/slow", slowCallback.get());
+            assertTrue(monitor.slowCallbacks() >= 1);
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testBlockedEventLoopIsReportedAsLag() throws Exception {
+        final CountDownLatch lagSignal = new CountDownLatch(1);
+        final AtomicLong reportedLagNanos = new AtomicLong();
+
+        final EventLoopMonitor monitor = EventLoopMonitor.builder()
+                .withLagThreshold(SLOW_CALLBACK_MS / 2, TimeUnit.MILLISECONDS)
+                .withListener(new EventLoopMonitorListener() {
+                    @Override
+                    public void onSlowCallback(final String url, final String callback, final long durationNanos) {
+                        //
+                    }
+
+                    @Override
+                    public void onEventLoopLag(final String eventLoop, final long lagNanos, final int pendingTasks) {
+                        reportedLagNanos.set(lagNanos);
+                        lagSignal.countDown();
+                    }
+                })
+                .build();
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            webClient.monitorEventLoops(monitor, 10);
+
+            webClient.execute(() -> {
+                try {
+                    Thread.sleep(SLOW_CALLBACK_MS * 2);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            lagSignal.await();
+
+            assertTrue(reportedLagNanos.get() > TimeUnit.MILLISECONDS.toNanos(SLOW_CALLBACK_MS / 2));
+            assertTrue(monitor.maxLagNanos() >= reportedLagNanos.get());
+            assertEquals(1, monitor.executorStats().size());
+        }
+    }
+
+    private static final class EmptyBodyHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+
+            ctx.writeAndFlush(response);
+        }
+    }
+}
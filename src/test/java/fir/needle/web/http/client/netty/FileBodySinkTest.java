@@ -0,0 +1,215 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.BaseHttpRequestListener;
+import fir.needle.web.http.client.Get;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+
+class FileBodySinkTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+    private static final int BODY_SIZE = 200_000;
+    private static final int SERVER_CHUNK_SIZE = 7_000;
+    private static final byte[] PREVIOUS_CONTENT = {1, 2, 3};
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+    private final byte[] content = new byte[BODY_SIZE];
+
+    private EventLoopGroup serverGroup;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws InterruptedException, IOException {
+        new Random(7).nextBytes(content);
+        file = Files.createTempFile("sink", ".bin");
+
+        serverGroup = new NioEventLoopGroup(1);
+        new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new DownloadHandler());
+                    }
+                })
+                .bind(PORT).sync();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException, IOException {
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testBodyIsWrittenToPreallocatedFile() throws InterruptedException, IOException {
+        assertBodyIsWritten("/sized", FileBodySink.<Get>builder(file)
+                .withPreallocation()
+                .withSyncPolicy(FileBodySink.SyncPolicy.ON_COMPLETE));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testChunkedBodyIsWrittenThroughGrowingMapping() throws InterruptedException, IOException {
+        assertBodyIsWritten("/chunked", FileBodySink.<Get>builder(file)
+                .withMemoryMapping()
+                .withMapWindowSize(64 * 1024));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testSizedBodyIsWrittenWindowByWindow() throws InterruptedException, IOException {
+        // the body is more than three windows long and doesn't end on a window boundary
+        assertBodyIsWritten("/sized", FileBodySink.<Get>builder(file)
+                .withMemoryMapping()
+                .withMapWindowSize(64 * 1024));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testErrorPageLeavesPreviousFileIntact() throws InterruptedException, IOException {
+        Files.write(file, PREVIOUS_CONTENT);
+        final CountDownLatch responseSignal = new CountDownLatch(1);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            client.get("/error", FileBodySink.<Get>builder(file)
+                    .withListener(new BaseHttpRequestListener<Get>() {
+                        @Override
+                        public void onResponseFinished() {
+                            responseSignal.countDown();
+                        }
+                    })
+                    .build());
+
+            responseSignal.await();
+        }
+
+        assertArrayEquals(PREVIOUS_CONTENT, Files.readAllBytes(file));
+
+        try (Stream<Path> siblings = Files.list(file.toAbsolutePath().getParent())) {
+            final String prefix = file.getFileName().toString();
+            assertFalse(siblings.anyMatch(sibling -> sibling.getFileName().toString().startsWith(prefix) &&
+                    !sibling.equals(file)));
+        }
+    }
+
+    private void assertBodyIsWritten(final String path, final FileBodySink.FileBodySinkBuilder<Get> sinkBuilder)
+            throws InterruptedException, IOException {
+
+        final CountDownLatch completionSignal = new CountDownLatch(1);
+        final AtomicLong size = new AtomicLong();
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            client.get(path, sinkBuilder
+                    .withCompletionListener((writtenPath, writtenSize) -> {
+                        size.set(writtenSize);
+                        completionSignal.countDown();
+                    })
+                    .build());
+
+            completionSignal.await();
+        }
+
+        assertEquals(BODY_SIZE, size.get());
+        assertArrayEquals(content, Files.readAllBytes(file));
+    }
+
+    private final class DownloadHandler extends SimpleChannelInboundHandler<HttpRequest> {
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final HttpRequest msg) {
+            if (msg.uri().startsWith("/error")) {
+                final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1,
+                        HttpResponseStatus.INTERNAL_SERVER_ERROR);
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, SERVER_CHUNK_SIZE);
+                ctx.write(response);
+                ctx.writeAndFlush(new DefaultLastHttpContent(Unpooled.wrappedBuffer(content, 0, SERVER_CHUNK_SIZE)));
+                return;
+            }
+
+            final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+
+            if (msg.uri().startsWith("/chunked")) {
+                HttpUtil.setTransferEncodingChunked(response, true);
+            } else {
+                response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, BODY_SIZE);
+            }
+
+            ctx.write(response);
+
+            for (int offset = 0; offset < BODY_SIZE; offset += SERVER_CHUNK_SIZE) {
+                final int length = Math.min(SERVER_CHUNK_SIZE, BODY_SIZE - offset);
+                ctx.write(new DefaultHttpContent(Unpooled.wrappedBuffer(content, offset, length)));
+            }
+
+            ctx.writeAndFlush(new DefaultLastHttpContent());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.lang.Cancelable;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.OverrunPolicy;
+import fir.needle.web.http.client.ScheduledGet;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class FixedRatePollingTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+    private static final int PERIOD_MS = 100;
+    private static final int NUMBER_OF_REQUESTS = 6;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testTicksStayEvenlySpacedWithoutKeepAlive() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final List<Long> arrivalsMs = new CopyOnWriteArrayList<>();
+        final CountDownLatch requestsSignal = new CountDownLatch(NUMBER_OF_REQUESTS);
+        final TickListener listener = new TickListener();
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new ClosingHandler(arrivalsMs, requestsSignal));
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final Cancelable poll = client.prepareGet("/tick")
+                    .withHeader("host", "localhost")
+                    .scheduleAtFixedRate(PERIOD_MS, OverrunPolicy.SKIP, listener);
+
+            requestsSignal.await();
+            poll.cancel();
+
+            // every request lands on its own tick, a lost tick would show up as a gap of two periods
+            for (int i = 1; i < NUMBER_OF_REQUESTS; i++) {
+                final long gapMs = arrivalsMs.get(i) - arrivalsMs.get(i - 1);
+                assertTrue(gapMs > PERIOD_MS / 2 && gapMs < PERIOD_MS * 3 / 2, "Gap of " + gapMs + " ms");
+            }
+
+            assertEquals(0, listener.skippedTicks);
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    private static final class ClosingHandler extends ChannelInboundHandlerAdapter {
+        private final List<Long> arrivalsMs;
+        private final CountDownLatch requestsSignal;
+
+        private ClosingHandler(final List<Long> arrivalsMs, final CountDownLatch requestsSignal) {
+            this.arrivalsMs = arrivalsMs;
+            this.requestsSignal = requestsSignal;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            arrivalsMs.add(System.currentTimeMillis());
+            requestsSignal.countDown();
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private static final class TickListener extends SingleConnectSingleDisconnectAdapter<ScheduledGet> {
+        volatile long skippedTicks;
+
+        @Override
+        public void onResponseStarted(final ScheduledGet request, final int code) {
+            skippedTicks = request.skippedTicks();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import fir.needle.web.http.client.OverrunPolicy;
+
+class FixedRateTickerTest {
+    private static final long PERIOD_MS = 100;
+
+    @Test
+    void testTicksAreAlignedToPeriodBoundaries() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.SKIP);
+
+        assertEquals(70, nextDelayMs(ticker, 1030));
+        ticker.onSend(1102);
+        assertEquals(2, ticker.tickLatenessMs());
+
+        // response took 40 ms, the next tick is still on the grid rather than 100 ms after the response
+        assertEquals(58, nextDelayMs(ticker, 1142));
+        ticker.onSend(1200);
+        assertEquals(0, ticker.tickLatenessMs());
+        assertEquals(0, ticker.skippedTicks());
+    }
+
+    @Test
+    void testSkipWaitsForNextTickAfterOverrun() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.SKIP);
+        nextDelayMs(ticker, 1000);
+        ticker.onSend(1000);
+
+        // ticks 1100 and 1200 are missed
+        assertEquals(50, nextDelayMs(ticker, 1250));
+        assertEquals(2, ticker.skippedTicks());
+
+        ticker.onSend(1300);
+        assertEquals(0, ticker.tickLatenessMs());
+    }
+
+    @Test
+    void testCoalesceSendsOnceForLatestMissedTick() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.COALESCE);
+        nextDelayMs(ticker, 1000);
+        ticker.onSend(1000);
+
+        assertEquals(0, nextDelayMs(ticker, 1250));
+        ticker.onSend(1250);
+        assertEquals(50, ticker.tickLatenessMs());
+        assertEquals(1, ticker.skippedTicks());
+
+        assertEquals(40, nextDelayMs(ticker, 1260));
+    }
+
+    @Test
+    void testQueueOneKeepsOneMissedTickQueued() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.QUEUE_ONE);
+        nextDelayMs(ticker, 1000);
+        ticker.onSend(1000);
+
+        // ticks 1100, 1200 and 1300 are missed: 1100 goes now, 1300 stays queued, 1200 is dropped
+        assertEquals(0, nextDelayMs(ticker, 1350));
+        ticker.onSend(1350);
+        assertEquals(250, ticker.tickLatenessMs());
+        assertEquals(1, ticker.skippedTicks());
+
+        assertEquals(0, nextDelayMs(ticker, 1360));
+        ticker.onSend(1360);
+        assertEquals(60, ticker.tickLatenessMs());
+
+        assertEquals(40, nextDelayMs(ticker, 1360));
+    }
+
+    @Test
+    void testSendWithoutAssignedTickIsAccountedToLatestTick() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.SKIP);
+        nextDelayMs(ticker, 1000);
+        ticker.onSend(1000);
+
+        ticker.onSend(1530);
+        assertEquals(30, ticker.tickLatenessMs());
+        assertEquals(70, nextDelayMs(ticker, 1530));
+    }
+
+    @Test
+    void testDelayCanBeAskedRepeatedlyWithoutLosingTicks() {
+        final FixedRateTicker ticker = new FixedRateTicker(PERIOD_MS, OverrunPolicy.SKIP);
+        nextDelayMs(ticker, 1000);
+        ticker.onSend(1000);
+
+        // a response without keep-alive is asked for the delay by both the send and the reconnect path
+        ticker.advance(1040);
+        assertEquals(60, ticker.delayMs(1040));
+        assertEquals(55, ticker.delayMs(1045));
+
+        ticker.onSend(1100);
+        assertEquals(0, ticker.tickLatenessMs());
+        assertEquals(0, ticker.skippedTicks());
+    }
+
+    private static long nextDelayMs(final FixedRateTicker ticker, final long nowMs) {
+        ticker.advance(nowMs);
+        return ticker.delayMs(nowMs);
+    }
+}
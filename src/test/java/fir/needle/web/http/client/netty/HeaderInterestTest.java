@@ -0,0 +1,159 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.PreparedGet;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class HeaderInterestTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    private List<String> receiveHeaders(final String... interest) throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch responseSignal = new CountDownLatch(1);
+        final HeadersListener listener = new HeadersListener(responseSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new ManyHeadersHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final PreparedGet get = client.prepareGet("/resource")
+                    .withHeader("host", "localhost");
+
+            if (interest.length > 0) {
+                get.withHeaderInterest(interest);
+            }
+
+            get.send(listener);
+            responseSignal.await();
+
+            return listener.headers;
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testAllHeadersAreDeliveredWithoutInterestSet() throws InterruptedException {
+        final List<String> headers = receiveHeaders();
+
+        assertEquals(4, headers.size());
+        assertEquals("x-request-id: 42", headers.get(1));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testOnlyHeadersOfInterestAreDelivered() throws InterruptedException {
+        final List<String> headers = receiveHeaders("X-Rate-Limit", "content-length");
+
+        assertEquals(2, headers.size());
+        assertEquals("x-rate-limit: 100", headers.get(0));
+        assertEquals("content-length: 0", headers.get(1));
+    }
+
+    private static final class ManyHeadersHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK);
+            response.headers()
+                    .set("x-rate-limit", "100")
+                    .set("x-request-id", "42")
+                    .set(HttpHeaderNames.CACHE_CONTROL, "no-cache")
+                    .setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class HeadersListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final List<String> headers = new ArrayList<>();
+        final CountDownLatch responseSignal;
+
+        private HeadersListener(final CountDownLatch responseSignal) {
+            this.responseSignal = responseSignal;
+        }
+
+        @Override
+        public void onHeader(final CharSequence key, final CharSequence value) {
+            headers.add(key + ": " + value);
+        }
+
+        @Override
+        public void onResponseFinished() {
+            responseSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http2.DefaultHttp2DataFrame;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+
+class Http2Test {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testConcurrentGetsShareOneConnection() throws InterruptedException {
+        final AtomicInteger acceptedConnections = new AtomicInteger();
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final CountDownLatch completeSignal = new CountDownLatch(2);
+        final ResponseAsStringListener firstListener = new ResponseAsStringListener(completeSignal);
+        final ResponseAsStringListener secondListener = new ResponseAsStringListener(completeSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withHttp2()
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            acceptedConnections.incrementAndGet();
+                            ch.pipeline().addLast(Http2FrameCodecBuilder.forServer().build());
+                            ch.pipeline().addLast(new PathEchoHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            client.get("/first", firstListener);
+            client.get("/second", secondListener);
+            completeSignal.await();
+
+            assertEquals("/first", firstListener.serverResponse.toString());
+            assertEquals("/second", secondListener.serverResponse.toString());
+            assertEquals(200, firstListener.code);
+            assertEquals(1, acceptedConnections.get());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    private static final class PathEchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            if (!(msg instanceof Http2HeadersFrame)) {
+                return;
+            }
+
+            final Http2HeadersFrame request = (Http2HeadersFrame) msg;
+            final byte[] path = request.headers().path().toString().getBytes(StandardCharsets.US_ASCII);
+
+            final Channel channel = ctx.channel();
+            channel.write(new DefaultHttp2HeadersFrame(new DefaultHttp2Headers()
+                    .status("200")
+                    .setInt("content-length", path.length))
+                    .stream(request.stream()));
+
+            channel.writeAndFlush(new DefaultHttp2DataFrame(Unpooled.wrappedBuffer(path), true)
+                    .stream(request.stream()));
+        }
+    }
+
+    private static final class ResponseAsStringListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final StringBuilder serverResponse = new StringBuilder();
+        final CountDownLatch parsingCompleteSignal;
+        volatile int code;
+
+        private ResponseAsStringListener(final CountDownLatch parsingCompleteSignal) {
+            this.parsingCompleteSignal = parsingCompleteSignal;
+        }
+
+        @Override
+        public void onResponseStarted(final Get request, final int code) {
+            this.code = code;
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < startIndex + length; i++) {
+                serverResponse.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        public void onResponseFinished() {
+            parsingCompleteSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.MetricsExporter;
+import fir.needle.web.NettyMetrics;
+import fir.needle.web.NettyWebClient;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.BaseHttpRequestListener;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+
+class MetricsTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final String BODY = "metered";
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testHttpClientReportsIntoWebClientMetrics() throws Exception {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final CountDownLatch responseSignal = new CountDownLatch(1);
+        final AtomicLong channelsActive = new AtomicLong();
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new BodyHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final NettyHttpClient client = webClient.httpClientBuilder()
+                    .withLogger(testLogger)
+                    .build("localhost", PORT);
+
+            client.prepareGet("/metered")
+                    .withHeader("host", "localhost")
+                    .send(new SingleConnectSingleDisconnectAdapter<Get>() {
+                        @Override
+                        public void onResponseStarted(final Get request, final int code) {
+                            throw new IllegalStateException("Listener failure");
+                        }
+
+                        @Override
+                        public void onResponseFinished() {
+                            // the connection is closed right after the response, so the gauge is read here
+                            channelsActive.set(webClient.metrics().channelsActive());
+                            responseSignal.countDown();
+                        }
+                    });
+
+            responseSignal.await();
+
+            final NettyMetrics metrics = webClient.metrics();
+            assertEquals(1, metrics.connectionsOpened());
+            assertEquals(1, channelsActive.get());
+            assertEquals(1, metrics.listenerErrors());
+            assertEquals(0, metrics.httpReconnects());
+            assertTrue(metrics.bytesWritten() > 0);
+            assertTrue(metrics.bytesRead() > BODY.length());
+
+            final Map<String, Long> exported = new HashMap<>();
+            metrics.export(new MetricsExporter() {
+                @Override
+                public void exportCounter(final String name, final long value) {
+                    exported.put(name, value);
+                }
+
+                @Override
+                public void exportGauge(final String name, final long value) {
+                    exported.put(name, value);
+                }
+            });
+
+            assertEquals(1L, (long) exported.get(NettyMetrics.CONNECTIONS_OPENED));
+            assertEquals(metrics.bytesRead(), (long) exported.get(NettyMetrics.BYTES_READ));
+            assertTrue(exported.containsKey("allocator.direct.used"));
+            assertTrue(exported.containsKey("allocator.heap.used"));
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testFailedConnectsAreCountedAsReconnects() throws Exception {
+        final CountDownLatch failureSignal = new CountDownLatch(2);
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            final NettyHttpClient client = webClient.httpClientBuilder()
+                    .withLogger(testLogger)
+                    .withNumberOfReconnectAttempts(1)
+                    .withReconnectTimeout(10)
+                    .build("localhost", PORT);
+
+            client.prepareGet("/unreachable")
+                    .withHeader("host", "localhost")
+                    .send(new BaseHttpRequestListener<Get>() {
+                        @Override
+                        public void onDisconnectedByError(final Get request,
+                                final AbstractHttpClientException exception) {
+                            failureSignal.countDown();
+                        }
+                    });
+
+            failureSignal.await();
+
+            assertEquals(1, webClient.metrics().httpReconnects());
+            assertEquals(0, webClient.metrics().connectionsOpened());
+        }
+    }
+
+    private static final class BodyHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK, ctx.alloc().buffer().writeBytes(BODY.getBytes(CharsetUtil.US_ASCII)));
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, BODY.length());
+
+            ctx.writeAndFlush(response);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.NettyTransport;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class NativeTransportTest {
+    private static final String EOL = "\r\n";
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testGetOverEpollWithLinuxOptions() {
+        assumeTrue(Epoll.isAvailable());
+
+        final String request = "GET /epoll HTTP/1.1" + EOL +
+                "host: localhost" + EOL +
+                "connection: keep-alive" + EOL +
+                "accept-encoding: gzip" + EOL +
+                EOL;
+
+        final CountDownLatch isServerUpSignal = new CountDownLatch(1);
+        final EchoServer echoServer = new EchoServer(PORT, Collections.singletonList(request.length()),
+                isServerUpSignal);
+
+        final CountDownLatch completeSignal = new CountDownLatch(1);
+        final ResponseAsStringListener listener = new ResponseAsStringListener(completeSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withTransport(NettyTransport.EPOLL)
+                .withTcpQuickAck()
+                .withEpollMode(EpollMode.LEVEL_TRIGGERED)
+                .build("localhost", PORT)) {
+
+            echoServer.start();
+            isServerUpSignal.await();
+
+            client.get("/epoll", listener);
+            completeSignal.await();
+
+            assertEquals(request, echoServer.receivedMessage);
+            assertEquals(echoServer.sentMessage, listener.serverResponse.toString());
+
+            echoServer.join();
+        } catch (final InterruptedException e) {
+            echoServer.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testGetOverUnixDomainSocketKeepsHostHeader() throws Exception {
+        assumeTrue(Epoll.isAvailable());
+
+        final Path socketPath = Files.createTempDirectory("needle").resolve("sidecar.sock");
+        final EventLoopGroup serverGroup = NettyTransport.EPOLL.newEventLoopGroup(1);
+
+        final CountDownLatch completeSignal = new CountDownLatch(1);
+        final ResponseAsStringListener listener = new ResponseAsStringListener(completeSignal);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build(socketPath, "sidecar.local", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(EpollServerDomainSocketChannel.class)
+                    .childHandler(new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(final Channel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new HostEchoHandler());
+                        }
+                    })
+                    .bind(new DomainSocketAddress(socketPath.toFile())).sync();
+
+            client.get("/uds", listener);
+            completeSignal.await();
+
+            assertTrue(listener.serverResponse.toString().endsWith(EOL + EOL + "sidecar.local/uds"));
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    @Test
+    void testDomainSocketClientDefaultsToSchemePort() throws InterruptedException {
+        assumeTrue(Epoll.isAvailable());
+
+        final Path socketPath = Paths.get("sidecar.sock");
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build(socketPath)) {
+            assertEquals(80, client.port());
+        }
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withSsl()
+                .build(socketPath)) {
+            assertEquals(443, client.port());
+        }
+    }
+
+    @Test
+    void testTransportIsDerivedFromEventLoopGroup() throws InterruptedException {
+        final EventLoopGroup nioGroup = NettyTransport.NIO.newEventLoopGroup(1);
+
+        try {
+            assertEquals(NettyTransport.NIO, NettyTransport.of(nioGroup));
+            assertEquals(NettyTransport.NIO, NettyTransport.of(nioGroup.next()));
+        } finally {
+            nioGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    void testTransportIsDerivedFromSingleEpollEventLoop() throws InterruptedException {
+        assumeTrue(Epoll.isAvailable());
+
+        final EventLoopGroup epollGroup = NettyTransport.EPOLL.newEventLoopGroup(1);
+
+        try {
+            assertEquals(NettyTransport.EPOLL, NettyTransport.of(epollGroup.next()));
+        } finally {
+            epollGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    private static final class HostEchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final HttpRequest request = (HttpRequest) msg;
+            final byte[] body = (request.headers().get(HttpHeaderNames.HOST) + request.uri())
+                    .getBytes(StandardCharsets.US_ASCII);
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.wrappedBuffer(body));
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class ResponseAsStringListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final StringBuilder serverResponse = new StringBuilder();
+        final CountDownLatch parsingCompleteSignal;
+
+        private ResponseAsStringListener(final CountDownLatch parsingCompleteSignal) {
+            this.parsingCompleteSignal = parsingCompleteSignal;
+        }
+
+        @Override
+        public void onResponseStarted(final Get request, final int code) {
+            serverResponse.append("HTTP/1.1 ")
+                    .append(HttpResponseStatus.valueOf(code))
+                    .append(EOL);
+        }
+
+        @Override
+        public void onHeader(final CharSequence key, final CharSequence value) {
+            serverResponse.append(key)
+                    .append(": ")
+                    .append(value)
+                    .append(EOL);
+        }
+
+        @Override
+        public void onBodyStarted() {
+            serverResponse.append(EOL);
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < length; i++) {
+                serverResponse.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        protected void onDoDisconnected(final Get request) {
+            parsingCompleteSignal.countDown();
+        }
+    }
+}
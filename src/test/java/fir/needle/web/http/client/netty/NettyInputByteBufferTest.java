@@ -0,0 +1,114 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+class NettyInputByteBufferTest {
+    private static final byte[] CONTENT = "xxHello, world!\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int SKIPPED = 2;
+
+    private static NettyInputByteBuffer newBuffer() {
+        final ByteBuf content = Unpooled.wrappedBuffer(CONTENT);
+        content.readerIndex(SKIPPED);
+        return new NettyInputByteBuffer(content);
+    }
+
+    @Test
+    void testIndicesAreRelativeToReaderIndex() {
+        final NettyInputByteBuffer input = newBuffer();
+
+        assertEquals('H', input.getByte(0));
+        assertEquals('!', input.getByte(12));
+        assertEquals('H', input.getByte(0));
+        assertEquals(CONTENT.length - SKIPPED, input.length());
+        assertEquals(SKIPPED, input.buffer().readerIndex());
+    }
+
+    @Test
+    void testBulkCopiesDoNotMoveReaderIndex() {
+        final NettyInputByteBuffer input = newBuffer();
+
+        final byte[] dst = new byte[7];
+        input.getBytes(7, dst, 1, 5);
+        assertArrayEquals(new byte[] {0, 'w', 'o', 'r', 'l', 'd', 0}, dst);
+
+        final ByteBuffer nio = ByteBuffer.allocate(5);
+        input.getBytes(0, nio);
+        assertEquals("Hello", new String(nio.array(), StandardCharsets.US_ASCII));
+
+        assertEquals(SKIPPED, input.buffer().readerIndex());
+    }
+
+    @Test
+    void testNioBufferIsReadOnlyView() {
+        final NettyInputByteBuffer input = newBuffer();
+
+        final ByteBuffer view = input.nioBuffer(7, 5);
+        assertTrue(view.isReadOnly());
+        assertEquals(5, view.remaining());
+        assertEquals('w', view.get(0));
+        assertThrows(ReadOnlyBufferException.class, () -> view.put(0, (byte) 'W'));
+        assertEquals('w', input.getByte(7));
+    }
+
+    @Test
+    void testPrimitivesAreBigEndian() {
+        final ByteBuf content = Unpooled.buffer();
+        content.writeByte(0xFF);
+        content.writeShort(0x0102);
+        content.writeInt(0x03040506);
+        content.writeLong(0x0708090A0B0C0D0EL);
+        content.readerIndex(1);
+
+        final NettyInputByteBuffer input = new NettyInputByteBuffer(content);
+        assertEquals(0x0102, input.getShort(0));
+        assertEquals(0x03040506, input.getInt(2));
+        assertEquals(0x0708090A0B0C0D0EL, input.getLong(6));
+        assertEquals(1, content.readerIndex());
+    }
+
+    @Test
+    void testIndexOf() {
+        final NettyInputByteBuffer input = newBuffer();
+
+        assertEquals(13, input.indexOf(0, input.length(), (byte) '\r'));
+        assertEquals(4, input.indexOf(0, input.length(), (byte) 'o'));
+        assertEquals(8, input.indexOf(5, input.length(), (byte) 'o'));
+        assertEquals(-1, input.indexOf(0, 5, (byte) 'w'));
+        assertEquals(-1, input.indexOf(0, input.length(), (byte) 'x'));
+    }
+}
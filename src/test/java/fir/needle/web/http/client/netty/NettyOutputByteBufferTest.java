@@ -0,0 +1,107 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import fir.needle.joint.io.CharArea;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+class NettyOutputByteBufferTest {
+    private static final String CONTENT = "xxHello, world!";
+
+    private static String written(final NettyOutputByteBuffer output) {
+        return output.buffer().toString(StandardCharsets.UTF_8);
+    }
+
+    private static NettyOutputByteBuffer newOutput() {
+        return new NettyOutputByteBuffer(Unpooled.buffer(2));
+    }
+
+    @Test
+    void testAppendAreaCopiesOnlyRequestedRange() {
+        final NettyOutputByteBuffer output = newOutput();
+
+        output.appendArea(new StringToByteArea().srcString(CONTENT), 9, 5);
+        assertEquals("world", written(output));
+    }
+
+    @Test
+    void testAppendAreaFromNettyBuffersCopiesOnlyRequestedRange() {
+        final ByteBuf content = Unpooled.copiedBuffer(CONTENT, StandardCharsets.US_ASCII);
+        content.readerIndex(2);
+
+        final NettyOutputByteBuffer output = newOutput();
+        output.appendArea(new NettyInputByteBuffer(content), 0, 5);
+        output.appendArea(new NettyOutputByteBuffer(content), 5, 2);
+        assertEquals("Hello, ", written(output));
+        assertEquals(2, content.readerIndex());
+
+        final NettyOutputByteBuffer copy = newOutput();
+        copy.appendArea(output, 1, 4);
+        assertEquals("ello", written(copy));
+        assertEquals('e', copy.getByte(0));
+    }
+
+    @Test
+    void testAppendBytes() {
+        final NettyOutputByteBuffer output = newOutput();
+
+        output.appendBytes(CONTENT.getBytes(StandardCharsets.US_ASCII), 2, 5);
+        output.appendBytes(ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.US_ASCII), 7, 8));
+        assertEquals("Hello, world!", written(output));
+    }
+
+    @Test
+    void testAppendText() {
+        final String text = "h\u00e9llo \u20ac \ud83d\ude00";
+        final CharArea area = new CharArea() {
+            @Override
+            public char getChar(final long index) {
+                return text.charAt((int) index);
+            }
+        };
+
+        final NettyOutputByteBuffer utf8 = newOutput();
+        utf8.appendUtf8(text);
+        utf8.appendUtf8(area, 0, text.length());
+        assertEquals(text + text, written(utf8));
+
+        final NettyOutputByteBuffer ascii = newOutput();
+        ascii.appendAscii("Hello");
+        ascii.appendAscii(new CharArea() {
+            @Override
+            public char getChar(final long index) {
+                return CONTENT.charAt((int) index);
+            }
+        }, 7, 7);
+        assertEquals("Hello, world", written(ascii));
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+
+class PipelinedChainTest {
+    private static final String EOL = "\r\n";
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final int NUMBER_OF_REQUESTS = 3;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testPipelinedResponsesAreMatchedInOrder() {
+        final List<String> originalRequests = new ArrayList<>();
+        int numberOfBytesToReceive = 0;
+
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            final String crtRequest = "GET /path/" + i + " HTTP/1.1" + EOL +
+                    "host: localhost" + EOL +
+                    EOL;
+
+            originalRequests.add(crtRequest);
+            numberOfBytesToReceive += crtRequest.length();
+        }
+
+        final CountDownLatch isServerUpSignal = new CountDownLatch(1);
+        final PipelineServer server = new PipelineServer(numberOfBytesToReceive, isServerUpSignal);
+
+        final CountDownLatch chainCompleteSignal = new CountDownLatch(NUMBER_OF_REQUESTS);
+        final List<BodyAsStringListener> listeners = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            listeners.add(new BodyAsStringListener(chainCompleteSignal));
+        }
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withPipelining(NUMBER_OF_REQUESTS)
+                .build("localhost", PORT)) {
+
+            server.start();
+            isServerUpSignal.await();
+
+            client.prepareGet("/path/0")
+                    .withHeader("host", "localhost")
+                    .addToChain(listeners.get(0))
+                    .prepareGet("/path/1")
+                    .withHeader("host", "localhost")
+                    .addToChain(listeners.get(1))
+                    .prepareGet("/path/2")
+                    .withHeader("host", "localhost")
+                    .send(listeners.get(2));
+
+            chainCompleteSignal.await();
+
+            for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+                assertEquals(originalRequests.get(i), listeners.get(i).body.toString());
+            }
+
+            server.join();
+        } catch (final InterruptedException e) {
+            server.interrupt();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Answers nothing until every request of the chain has arrived, so a client which waits for a response before
+     * sending the next request never completes the chain. The requests are then echoed back in the order they came.
+     */
+    private static final class PipelineServer extends Thread {
+        private final int bytesToAccept;
+        private final CountDownLatch isUpSignal;
+
+        private PipelineServer(final int bytesToAccept, final CountDownLatch isUpSignal) {
+            this.bytesToAccept = bytesToAccept;
+            this.isUpSignal = isUpSignal;
+        }
+
+        @Override
+        public void run() {
+            try (ServerSocket serverSocket = new ServerSocket(PORT)) {
+                isUpSignal.countDown();
+
+                try (Socket clientSocket = serverSocket.accept();
+                        InputStream in = clientSocket.getInputStream();
+                        OutputStreamWriter out = new OutputStreamWriter(clientSocket.getOutputStream(),
+                                StandardCharsets.US_ASCII)) {
+
+                    final byte[] received = new byte[bytesToAccept];
+                    int n = 0;
+                    while (n < received.length) {
+                        final int count = in.read(received, n, received.length - n);
+                        if (count < 0) {
+                            return;
+                        }
+                        n += count;
+                    }
+
+                    final String requests = new String(received, StandardCharsets.US_ASCII);
+                    int start = 0;
+                    while (start < requests.length()) {
+                        // every request of the test ends with an empty line
+                        final int end = requests.indexOf(EOL + EOL, start) + 2 * EOL.length();
+                        final String request = requests.substring(start, end);
+
+                        out.write("HTTP/1.1 200 OK" + EOL +
+                                "Content-Length: " + request.length() + EOL +
+                                EOL +
+                                request);
+                        start = end;
+                    }
+
+                    out.flush();
+                }
+            } catch (final IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class BodyAsStringListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final StringBuilder body = new StringBuilder();
+        final CountDownLatch responseFinishedSignal;
+
+        private BodyAsStringListener(final CountDownLatch responseFinishedSignal) {
+            this.responseFinishedSignal = responseFinishedSignal;
+        }
+
+        @Override
+        public void onBodyContent(final ByteArea buffer, final long startIndex, final long length) {
+            for (long i = startIndex; i < startIndex + length; i++) {
+                body.append((char) buffer.getByte(i));
+            }
+        }
+
+        @Override
+        public void onResponseFinished() {
+            responseFinishedSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import fir.needle.web.SilentTestLogger;
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.util.CharsetUtil;
+
+class RequestBodyTest {
+    private static final String EOL = "\r\n";
+    private static final String BODY = "{\"key\": \"value\"}";
+    private static final String HEAD = "POST /my/test/path HTTP/1.1" + EOL +
+            "host: localhost" + EOL +
+            "content-type: application/json" + EOL +
+            "content-length: " + BODY.length() + EOL + EOL;
+
+    private static String drain(final Object request) {
+        final EncodedHttpRequest encoded = (EncodedHttpRequest) request;
+        try {
+            return encoded.content().toString(CharsetUtil.US_ASCII);
+        } finally {
+            encoded.release();
+        }
+    }
+
+    private static NettyPreparedPost newPost(final NettyHttpClient client) {
+        final NettyPreparedPost result = client.createPreparedPost("/my/test/path", null)
+                .withHeader("host", "localhost");
+
+        result.withBody("application/json", BODY.length())
+                .appendArea(new StringToByteArea().srcString(BODY), 0, BODY.length());
+
+        return result;
+    }
+
+    @Test
+    void testBodyIsSentOnEverySendWithoutBeingCopied() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(new SilentTestLogger())
+                .withDirectBodies()
+                .build("localhost", 8080)) {
+
+            final NettyPostRequest request = new NettyPostRequest(newPost(client));
+            final ByteBuf body = request.body.buffer();
+            assertTrue(body.isDirect());
+
+            assertEquals(HEAD + BODY, drain(request.encoded()));
+            assertEquals(HEAD + BODY, drain(request.encoded()));
+
+            final FullHttpRequest http2Request = (FullHttpRequest) request.get();
+            assertEquals(BODY, http2Request.content().toString(CharsetUtil.US_ASCII));
+            http2Request.release();
+
+            assertEquals(1, body.refCnt());
+            assertEquals(BODY.length(), body.readableBytes());
+
+            request.release();
+            assertEquals(0, body.refCnt());
+        }
+    }
+
+    @Test
+    void testBodyIsReleasedWhenScheduledRequestIsCanceled() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(new SilentTestLogger())
+                .build("localhost", 8080)) {
+
+            final NettyPreparedPost preparedPost = newPost(client);
+            final ByteBuf body = preparedPost.body.buffer();
+
+            final NettyScheduledPost request = new NettyScheduledPost(preparedPost);
+            assertNull(preparedPost.body);
+
+            final EncodedHttpRequest inFlight = (EncodedHttpRequest) request.encoded();
+            request.cancel();
+            request.setCancelIsDone();
+
+            // a write which is still in progress keeps the body alive
+            assertEquals(1, body.refCnt());
+            assertEquals(HEAD + BODY, drain(inFlight));
+            assertEquals(0, body.refCnt());
+        }
+    }
+
+    @Test
+    void testGrowableBodyTakesContentLengthAtSendTime() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(new SilentTestLogger())
+                .build("localhost", 8080)) {
+
+            final NettyPreparedPost preparedPost = client.createPreparedPost("/my/test/path", null)
+                    .withHeader("host", "localhost");
+            ((NettyOutputByteBuffer) preparedPost.withBody("application/json")).appendAscii(BODY);
+
+            final NettyPostRequest request = new NettyPostRequest(preparedPost);
+            assertEquals(HEAD + BODY, drain(request.encoded()));
+
+            ((NettyOutputByteBuffer) request.body).appendAscii(BODY);
+            assertEquals(HEAD.replace(String.valueOf(BODY.length()), String.valueOf(BODY.length() * 2)) +
+                    BODY + BODY, drain(request.encoded()));
+
+            final FullHttpRequest http2Request = (FullHttpRequest) request.get();
+            assertEquals(BODY.length() * 2, http2Request.headers().getInt("content-length").intValue());
+            http2Request.release();
+
+            request.release();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.RequestTimings;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class RequestTimingsTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 3;
+    private static final long SERVER_DELAY_MS = 50;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testPhasesOfFreshAndKeptAliveConnection() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final TimingsListener listener = new TimingsListener(2);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            startServer(serverGroup);
+
+            client.prepareGet("/timed")
+                    .withHeader("host", "localhost")
+                    .send(listener);
+
+            listener.responseSignal.await();
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+
+        final TimingsSnapshot fresh = listener.snapshots.get(0);
+        assertFalse(fresh.isConnectionReused);
+        assertEquals(RequestTimings.NOT_RECORDED, fresh.tlsHandshakeNanos);
+        assertTrue(fresh.startedNanos <= fresh.connectedNanos);
+        assertTrue(fresh.connectedNanos <= fresh.requestWrittenNanos);
+        assertTrue(fresh.requestWrittenNanos <= fresh.responseStartedNanos);
+        assertTrue(fresh.responseStartedNanos <= fresh.responseFinishedNanos);
+        assertTrue(fresh.timeToFirstByteNanos >= TimeUnit.MILLISECONDS.toNanos(SERVER_DELAY_MS));
+
+        final TimingsSnapshot keptAlive = listener.snapshots.get(1);
+        assertTrue(keptAlive.isConnectionReused);
+        assertEquals(RequestTimings.NOT_RECORDED, keptAlive.connectedNanos);
+        assertTrue(keptAlive.startedNanos > fresh.responseFinishedNanos);
+        assertTrue(keptAlive.startedNanos <= keptAlive.requestWrittenNanos);
+        assertTrue(keptAlive.totalNanos >= TimeUnit.MILLISECONDS.toNanos(SERVER_DELAY_MS));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testLatenciesAreAggregatedByPath() throws InterruptedException {
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+        final TimingsListener firstListener = new TimingsListener(2);
+        final TimingsListener secondListener = new TimingsListener(1);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withLatencyHistograms()
+                .build("localhost", PORT)) {
+
+            startServer(serverGroup);
+
+            client.prepareGet("/first")
+                    .withHeader("host", "localhost")
+                    .send(firstListener);
+            firstListener.responseSignal.await();
+
+            client.prepareGet("/second", "id=1")
+                    .withHeader("host", "localhost")
+                    .send(secondListener);
+            secondListener.responseSignal.await();
+
+            assertEquals(2, client.latencyHistograms().size());
+            assertNull(client.latencyHistogram("/third"));
+
+            final LatencyHistogram first = client.latencyHistogram("/first");
+            assertEquals(2, first.count());
+            assertTrue(first.percentileNanos(50) >= TimeUnit.MILLISECONDS.toNanos(SERVER_DELAY_MS) * 15 / 16);
+            assertTrue(first.maxNanos() >= first.percentileNanos(100));
+
+            assertEquals(1, client.latencyHistogram("/second").count());
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    void testHistogramBucketsKeepRelativePrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.maxNanos());
+        assertEquals(500_500, histogram.meanNanos());
+
+        final long median = histogram.percentileNanos(50);
+        assertTrue(median <= 500_000 && median >= 500_000 * 15 / 16);
+
+        final long p99 = histogram.percentileNanos(99);
+        assertTrue(p99 <= 990_000 && p99 >= 990_000 * 15 / 16);
+
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            final long lowerBound = LatencyHistogram.lowerBoundOf(LatencyHistogram.bucketOf(value));
+            assertTrue(lowerBound <= value && value - lowerBound <= value / 16);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileNanos(99.9));
+    }
+
+    private void startServer(final EventLoopGroup serverGroup) throws InterruptedException {
+        new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new DelayedResponseHandler());
+                    }
+                })
+                .bind(PORT).sync();
+    }
+
+    private static final class DelayedResponseHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+
+            ctx.executor().schedule(() -> ctx.writeAndFlush(response), SERVER_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static final class TimingsSnapshot {
+        final long startedNanos;
+        final long connectedNanos;
+        final long tlsHandshakeNanos;
+        final long requestWrittenNanos;
+        final long responseStartedNanos;
+        final long responseFinishedNanos;
+        final long timeToFirstByteNanos;
+        final long totalNanos;
+        final boolean isConnectionReused;
+
+        private TimingsSnapshot(final RequestTimings timings) {
+            this.startedNanos = timings.startedNanos();
+            this.connectedNanos = timings.connectedNanos();
+            this.tlsHandshakeNanos = timings.tlsHandshakeNanos();
+            this.requestWrittenNanos = timings.requestWrittenNanos();
+            this.responseStartedNanos = timings.responseStartedNanos();
+            this.responseFinishedNanos = timings.responseFinishedNanos();
+            this.timeToFirstByteNanos = timings.timeToFirstByteNanos();
+            this.totalNanos = timings.totalNanos();
+            this.isConnectionReused = timings.isConnectionReused();
+        }
+    }
+
+    private static final class TimingsListener extends SingleConnectSingleDisconnectAdapter<Get> {
+        final List<TimingsSnapshot> snapshots = new ArrayList<>();
+        final CountDownLatch responseSignal = new CountDownLatch(1);
+        final int numberOfResponses;
+
+        private Get request;
+
+        private TimingsListener(final int numberOfResponses) {
+            this.numberOfResponses = numberOfResponses;
+        }
+
+        @Override
+        public void onResponseStarted(final Get request, final int code) {
+            this.request = request;
+        }
+
+        @Override
+        public void onResponseFinished() {
+            snapshots.add(new TimingsSnapshot(request.timings()));
+
+            if (snapshots.size() < numberOfResponses) {
+                request.send();
+                return;
+            }
+
+            responseSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.lang.Cancelable;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.ScheduledGet;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+class SharedPollingTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+    private static final int NUMBER_OF_POLLS = 200;
+    private static final int MAX_CONNECTIONS = 2;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testPollsShareBoundedSetOfConnections() throws InterruptedException {
+        final AtomicInteger acceptedConnections = new AtomicInteger();
+        final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_POLLS; i++) {
+            paths.add("/poll/" + i);
+        }
+
+        // every poll has to be answered at least twice, so each one goes back to the pool in between
+        final CountDownLatch completeSignal = new CountDownLatch(NUMBER_OF_POLLS);
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withConnectionPool()
+                .withMaxConnectionsPerHost(MAX_CONNECTIONS)
+                .withMaxPendingAcquires(NUMBER_OF_POLLS)
+                .withTimingWheel(10, 64)
+                .build("localhost", PORT)) {
+
+            new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(final SocketChannel ch) {
+                            acceptedConnections.incrementAndGet();
+                            ch.pipeline().addLast(new HttpServerCodec());
+                            ch.pipeline().addLast(new OkHandler());
+                        }
+                    })
+                    .bind(PORT).sync();
+
+            final List<Cancelable> polls = client.scheduleGets(paths, 100,
+                    path -> new CountingListener(completeSignal));
+
+            completeSignal.await();
+
+            for (final Cancelable crtPoll : polls) {
+                crtPoll.cancel();
+            }
+
+            assertTrue(acceptedConnections.get() <= MAX_CONNECTIONS,
+                    "Opened " + acceptedConnections.get() + " connections");
+        } finally {
+            serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+        }
+    }
+
+    @Test
+    void testStaggerSpreadsMorePathsThanMillisecondsInPeriod() {
+        final int periodMs = 100;
+        final Set<Long> offsetsMs = new HashSet<>();
+        long previousMs = 0;
+
+        for (int i = 0; i < NUMBER_OF_POLLS; i++) {
+            final long offsetMs = NettyHttpClient.staggerMs(i, periodMs, NUMBER_OF_POLLS);
+
+            assertTrue(offsetMs >= previousMs && offsetMs < periodMs, "Offset " + offsetMs + " for poll " + i);
+            offsetsMs.add(offsetMs);
+            previousMs = offsetMs;
+        }
+
+        // two polls per millisecond rather than all of them at the start of the period
+        assertEquals(periodMs, offsetsMs.size());
+    }
+
+    private static final class OkHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            final byte[] body = "ok".getBytes(StandardCharsets.US_ASCII);
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                    Unpooled.wrappedBuffer(body));
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, body.length);
+
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class CountingListener extends SingleConnectSingleDisconnectAdapter<ScheduledGet> {
+        private final CountDownLatch completeSignal;
+        private int responses;
+
+        private CountingListener(final CountDownLatch completeSignal) {
+            this.completeSignal = completeSignal;
+        }
+
+        @Override
+        public void onResponseFinished() {
+            if (++responses == 2) {
+                completeSignal.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,345 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import fir.needle.joint.io.ByteAppendable;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.BodyProducer;
+import fir.needle.web.http.client.OverrunPolicy;
+import fir.needle.web.http.client.Post;
+import fir.needle.web.http.client.PreparedPost;
+import fir.needle.web.http.client.ScheduledPost;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+
+class StreamingBodyTest {
+    private static final int PORT = 8080;
+    private static final int TEST_TIMEOUT_SECONDS = 5;
+    private static final int BODY_SIZE = 3 * StreamedRequestBody.CHUNK_SIZE + 123;
+
+    private final SilentTestLogger testLogger = new SilentTestLogger();
+    private final byte[] content = new byte[BODY_SIZE];
+
+    private EventLoopGroup serverGroup;
+    private volatile FullHttpRequest received;
+    private volatile boolean wasChunked;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        new Random(42).nextBytes(content);
+
+        serverGroup = new NioEventLoopGroup(1);
+        new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new SimpleChannelInboundHandler<HttpRequest>(false) {
+                            @Override
+                            protected void channelRead0(final ChannelHandlerContext ctx, final HttpRequest msg) {
+                                // the aggregator drops transfer-encoding, so it's looked at before aggregation
+                                wasChunked = msg.headers().contains(HttpHeaderNames.TRANSFER_ENCODING);
+                                ctx.fireChannelRead(msg);
+                            }
+                        });
+                        ch.pipeline().addLast(new HttpObjectAggregator(BODY_SIZE));
+                        ch.pipeline().addLast(new UploadHandler());
+                    }
+                })
+                .bind(PORT).sync();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (received != null) {
+            received.release();
+        }
+
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testFileIsUploadedWithContentLength() throws IOException, InterruptedException {
+        final Path file = Files.createTempFile("upload", ".bin");
+
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            Files.write(file, content);
+
+            final UploadListener listener = new UploadListener();
+            client.preparePost("/upload")
+                    .withHeader("host", "localhost")
+                    .withBody("application/octet-stream", file)
+                    .send(listener);
+
+            listener.responseSignal.await();
+
+            assertEquals(HttpResponseStatus.OK.code(), listener.code);
+            assertEquals(Integer.toString(BODY_SIZE), received.headers().get(HttpHeaderNames.CONTENT_LENGTH));
+            assertArrayEquals(content, ByteBufUtil.getBytes(received.content()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testProducerOfUnknownLengthIsUploadedChunked() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            final ArrayProducer producer = new ArrayProducer(content);
+            final UploadListener listener = new UploadListener();
+
+            client.preparePost("/upload")
+                    .withHeader("host", "localhost")
+                    .withBody("application/octet-stream", BodyProducer.UNKNOWN_LENGTH, producer)
+                    .send(listener);
+
+            listener.responseSignal.await();
+
+            assertEquals(HttpResponseStatus.OK.code(), listener.code);
+            assertTrue(wasChunked);
+            assertArrayEquals(content, ByteBufUtil.getBytes(received.content()));
+            assertTrue(producer.chunks > 1);
+            assertTrue(producer.isClosed);
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testProducerWithoutDataIsNotPolledUntilResumed() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            final LateProducer producer = new LateProducer(content);
+            final UploadListener listener = new UploadListener();
+
+            client.preparePost("/upload")
+                    .withHeader("host", "localhost")
+                    .withBody("application/octet-stream", BODY_SIZE, producer)
+                    .send(listener);
+
+            listener.responseSignal.await();
+
+            assertEquals(HttpResponseStatus.OK.code(), listener.code);
+            assertArrayEquals(content, ByteBufUtil.getBytes(received.content()));
+            assertEquals(1, producer.idleCalls);
+        }
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testProducerShorterThanContentLengthFailsRequest() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .withNoReconnect()
+                .build("localhost", PORT)) {
+
+            final UploadListener listener = new UploadListener();
+
+            client.preparePost("/upload")
+                    .withHeader("host", "localhost")
+                    .withBody("application/octet-stream", BODY_SIZE + 1, new ArrayProducer(content))
+                    .send(listener);
+
+            listener.errorSignal.await();
+
+            assertTrue(listener.error.getMessage().contains("Content-Length"), listener.error.getMessage());
+            assertNull(received);
+        }
+    }
+
+    @Test
+    void testProducerBodyCannotBeScheduled() throws InterruptedException {
+        try (NettyHttpClient client = NettyHttpClient.builder()
+                .withLogger(testLogger)
+                .build("localhost", PORT)) {
+
+            final PreparedPost post = client.preparePost("/upload")
+                    .withHeader("host", "localhost")
+                    .withBody("application/octet-stream", BODY_SIZE, new ArrayProducer(content));
+
+            assertThrows(IllegalStateException.class, () -> post.schedule(100,
+                    new SingleConnectSingleDisconnectAdapter<ScheduledPost>()));
+            assertThrows(IllegalStateException.class, () -> post.scheduleAtFixedRate(100, OverrunPolicy.SKIP,
+                    new SingleConnectSingleDisconnectAdapter<ScheduledPost>()));
+        }
+    }
+
+    private final class UploadHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        private UploadHandler() {
+            super(false);
+        }
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final FullHttpRequest msg) {
+            received = msg;
+
+            final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                    HttpResponseStatus.OK);
+            response.headers().setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
+            ctx.writeAndFlush(response);
+        }
+    }
+
+    private static final class ArrayProducer implements BodyProducer {
+        private final byte[] source;
+        private int position;
+        private volatile int chunks;
+        private volatile boolean isClosed;
+
+        private ArrayProducer(final byte[] source) {
+            this.source = source;
+        }
+
+        @Override
+        public int produce(final ByteAppendable chunk, final int maxLength) {
+            if (position == source.length) {
+                return END_OF_BODY;
+            }
+
+            final int length = Math.min(maxLength, source.length - position);
+            for (int i = 0; i < length; i++) {
+                chunk.appendByte(source[position++]);
+            }
+
+            chunks++;
+            return length;
+        }
+
+        @Override
+        public void close() {
+            isClosed = true;
+        }
+    }
+
+    // has nothing on the first call and resumes the transfer a bit later from another thread
+    private static final class LateProducer implements BodyProducer {
+        private static final long RESUME_DELAY_MS = 100;
+
+        private final ArrayProducer source;
+        private Runnable resume;
+        private boolean isReady;
+        private volatile int idleCalls;
+
+        private LateProducer(final byte[] source) {
+            this.source = new ArrayProducer(source);
+        }
+
+        @Override
+        public void onStart(final Runnable resume) {
+            this.resume = resume;
+        }
+
+        @Override
+        public int produce(final ByteAppendable chunk, final int maxLength) {
+            if (isReady) {
+                return source.produce(chunk, maxLength);
+            }
+
+            idleCalls++;
+            isReady = true;
+
+            final Thread resumer = new Thread(() -> {
+                try {
+                    Thread.sleep(RESUME_DELAY_MS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                resume.run();
+            });
+            resumer.start();
+
+            return NO_DATA_YET;
+        }
+    }
+
+    private static final class UploadListener extends SingleConnectSingleDisconnectAdapter<Post> {
+        final CountDownLatch responseSignal = new CountDownLatch(1);
+        final CountDownLatch errorSignal = new CountDownLatch(1);
+        volatile int code;
+        volatile AbstractHttpClientException error;
+
+        @Override
+        public void onResponseStarted(final Post request, final int code) {
+            this.code = code;
+        }
+
+        @Override
+        public void onResponseFinished() {
+            responseSignal.countDown();
+        }
+
+        @Override
+        protected void onDoDisconnectedByError(final Post request, final AbstractHttpClientException error) {
+            this.error = error;
+            errorSignal.countDown();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.http.client.netty;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+
+class TemplateClientCodecTest {
+    private static final String EOL = "\r\n";
+
+    private static NettyGetRequest newRequest(final HttpMethod method) {
+        return new NettyGetRequest(new NettyPreparedGet()
+                .withHost("localhost")
+                .withHttpVersion(HttpVersion.HTTP_1_1)
+                .withHttpMethod(method)
+                .withPath("/my/test/path")
+                .withQuery("a=1")
+                .withHeader("host", "localhost")
+                .withHeader("connection", "keep-alive"));
+    }
+
+    private static String readOutbound(final EmbeddedChannel channel) {
+        final ByteBuf written = channel.readOutbound();
+        try {
+            return written.toString(CharsetUtil.US_ASCII);
+        } finally {
+            written.release();
+        }
+    }
+
+    @Test
+    void testTemplateIsReusedUntilUpdated() {
+        final NettyGetRequest request = newRequest(HttpMethod.GET);
+        final EmbeddedChannel channel = new EmbeddedChannel(new TemplateClientCodec());
+
+        final EncodedHttpRequest first = (EncodedHttpRequest) request.encoded();
+        final EncodedHttpRequest second = (EncodedHttpRequest) request.encoded();
+        final ByteBuf template = first.content().unwrap();
+        assertSame(template, second.content().unwrap());
+
+        channel.writeOutbound(first, second);
+
+        final String expected = "GET /my/test/path?a=1 HTTP/1.1" + EOL +
+                "host: localhost" + EOL +
+                "connection: keep-alive" + EOL + EOL;
+        assertEquals(expected, readOutbound(channel));
+        assertEquals(expected, readOutbound(channel));
+
+        request.updateQuery("a=2").updateHeader("x-test", "1");
+        final EncodedHttpRequest updated = (EncodedHttpRequest) request.encoded();
+        final ByteBuf updatedTemplate = updated.content().unwrap();
+        assertNotSame(template, updatedTemplate);
+        assertEquals(0, template.refCnt());
+
+        channel.writeOutbound(updated);
+        assertEquals("GET /my/test/path?a=2 HTTP/1.1" + EOL +
+                "host: localhost" + EOL +
+                "connection: keep-alive" + EOL +
+                "x-test: 1" + EOL + EOL, readOutbound(channel));
+
+        request.invalidateTemplate();
+        assertEquals(0, updatedTemplate.refCnt());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testResponseToHeadRequestHasNoBody() {
+        final EmbeddedChannel channel = new EmbeddedChannel(new TemplateClientCodec());
+
+        channel.writeOutbound(newRequest(HttpMethod.HEAD).encoded(), newRequest(HttpMethod.GET).encoded());
+        readOutbound(channel);
+        readOutbound(channel);
+
+        final String headers = "HTTP/1.1 200 OK" + EOL + "content-length: 4" + EOL + EOL;
+        channel.writeInbound(Unpooled.copiedBuffer(headers + headers + "body", CharsetUtil.US_ASCII));
+
+        assertTrue(channel.readInbound() instanceof HttpResponse);
+        assertEquals(LastHttpContent.EMPTY_LAST_CONTENT, channel.readInbound());
+
+        assertTrue(channel.readInbound() instanceof HttpResponse);
+        final LastHttpContent body = channel.readInbound();
+        assertEquals("body", body.content().toString(CharsetUtil.US_ASCII));
+        body.release();
+
+        channel.finishAndReleaseAll();
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Fixed arrival rate timeline. The n-th operation is due at start + n * interval no matter when the previous
+ * one completed, so latency measured from the intended time also covers the time an operation waited behind a
+ * stall instead of hiding it (coordinated omission).
+ */
+final class ArrivalSchedule {
+    private final long startNanos;
+    private final long intervalNanos;
+
+    private long next;
+
+    ArrivalSchedule(final long startNanos, final int ratePerSecond) {
+        this.startNanos = startNanos;
+        this.intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+    }
+
+    long intervalNanos() {
+        return intervalNanos;
+    }
+
+    long intendedNanos(final long index) {
+        return startNanos + index * intervalNanos;
+    }
+
+    // parks until the next operation is due and returns its intended time, returns at once when running late
+    long awaitNext() {
+        final long intended = intendedNanos(next++);
+
+        for (long now = System.nanoTime(); now < intended; now = System.nanoTime()) {
+            LockSupport.parkNanos(intended - now);
+        }
+
+        return intended;
+    }
+}
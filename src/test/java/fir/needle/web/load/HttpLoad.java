@@ -0,0 +1,133 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import fir.needle.web.NettyWebClient;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.http.client.AbstractHttpClientException;
+import fir.needle.web.http.client.Get;
+import fir.needle.web.http.client.SingleConnectSingleDisconnectAdapter;
+import fir.needle.web.http.client.netty.ContentDecoderFactory;
+import fir.needle.web.http.client.netty.NettyHttpClient;
+
+/*
+ * Sends GET requests at a fixed arrival rate, round robin over the clients, without waiting for earlier responses.
+ * Requests still in flight when the drain timeout expires are counted as errors.
+ */
+final class HttpLoad {
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long DRAIN_POLL_MS = 10;
+
+    private HttpLoad() {
+    }
+
+    static LoadStats run(final LoadOptions options, final String host, final int port) throws Exception {
+        final LoadStats stats = new LoadStats();
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            final NettyHttpClient[] clients = new NettyHttpClient[options.clients];
+
+            for (int i = 0; i < clients.length; i++) {
+                final NettyHttpClient.NettyHttpClientBuilder builder = webClient.httpClientBuilder()
+                        .withLogger(new SilentTestLogger())
+                        .withConnectionPool();
+
+                if (options.gzip) {
+                    builder.withAcceptEncoding(ContentDecoderFactory.GZIP);
+                }
+
+                clients[i] = builder.build(host, port);
+            }
+
+            final long requests = (long) options.rate * options.durationSeconds;
+            stats.start();
+            final ArrivalSchedule schedule = new ArrivalSchedule(System.nanoTime(), options.rate);
+
+            for (long i = 0; i < requests; i++) {
+                final long intendedNanos = schedule.awaitNext();
+
+                inFlight.incrementAndGet();
+                clients[(int) (i % clients.length)].prepareGet(LoadHttpServer.PATH)
+                        .withHeader("host", host)
+                        .send(new Exchange(intendedNanos, stats, inFlight));
+            }
+
+            final long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+            while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+                Thread.sleep(DRAIN_POLL_MS);
+            }
+
+            stats.stop();
+
+            for (int i = inFlight.get(); i > 0; i--) {
+                stats.recordError();
+            }
+        }
+
+        return stats;
+    }
+
+    private static final class Exchange extends SingleConnectSingleDisconnectAdapter<Get> {
+        private final long intendedNanos;
+        private final LoadStats stats;
+        private final AtomicInteger inFlight;
+
+        private long sentNanos;
+        private boolean isDone;
+
+        private Exchange(final long intendedNanos, final LoadStats stats, final AtomicInteger inFlight) {
+            this.intendedNanos = intendedNanos;
+            this.sentNanos = intendedNanos;
+            this.stats = stats;
+            this.inFlight = inFlight;
+        }
+
+        @Override
+        public void onBeforeRequestSent(final Get request) {
+            sentNanos = System.nanoTime();
+        }
+
+        @Override
+        public void onResponseFinished() {
+            if (!isDone) {
+                isDone = true;
+                stats.record(intendedNanos, sentNanos, System.nanoTime());
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        protected void onDoDisconnectedByError(final Get request, final AbstractHttpClientException error) {
+            if (!isDone) {
+                isDone = true;
+                stats.recordError();
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+/*
+ * Local end to end load run: starts an in-process server, drives it with NettyHttpClient or NettyWebSocketClient
+ * instances at a fixed arrival rate and prints throughput with corrected and uncorrected latency percentiles.
+ *
+ *   ./gradlew loadTest -PloadArgs="mode=http clients=4 rate=5000 duration=30 size=4096 chunks=4 gzip=true"
+ *   ./gradlew loadTest -PloadArgs="mode=ws clients=8 rate=20000 duration=30 size=256"
+ */
+public final class LoadGenerator {
+    private static final String HOST = "localhost";
+
+    private LoadGenerator() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final LoadOptions options = LoadOptions.parse(args);
+        System.out.println(run(options).report(options.mode));
+    }
+
+    static LoadStats run(final LoadOptions options) throws Exception {
+        if (LoadOptions.WEBSOCKET.equals(options.mode)) {
+            try (LoadWebSocketServer server = new LoadWebSocketServer(options.port,
+                    WebSocketLoad.messagesPerConnection(options), options.size)) {
+                return WebSocketLoad.run(options, HOST, options.port);
+            }
+        }
+
+        try (LoadHttpServer server = new LoadHttpServer(options.port, options.size, options.chunks)) {
+            return HttpLoad.run(options, HOST, options.port);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+class LoadGeneratorTest {
+    private static final int TEST_TIMEOUT_SECONDS = 10;
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void testScheduleKeepsIntendedTimesWhenRunningLate() throws InterruptedException {
+        final long start = System.nanoTime();
+        final ArrivalSchedule schedule = new ArrivalSchedule(start, 1000);
+
+        Thread.sleep(20);
+
+        assertEquals(start, schedule.awaitNext());
+        assertEquals(start + MILLI, schedule.awaitNext());
+        assertEquals(start + 5 * MILLI, schedule.intendedNanos(5));
+    }
+
+    @Test
+    void testCorrectedLatencyIncludesQueueingDelay() {
+        final LoadStats stats = new LoadStats();
+
+        // due at 0, held back until 9ms by a stall, answered 1ms after it was sent
+        stats.record(0, 9 * MILLI, 10 * MILLI);
+
+        assertEquals(10 * MILLI, stats.corrected().maxNanos());
+        assertEquals(MILLI, stats.uncorrected().maxNanos());
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testHttpRunCompletesEveryRequest() throws Exception {
+        final LoadStats stats = LoadGenerator.run(LoadOptions.parse("mode=http", "clients=2", "rate=200",
+                "duration=1", "size=4096", "chunks=4", "gzip=true", "port=8093"));
+
+        assertEquals(200, stats.completed());
+        assertEquals(0, stats.errors());
+        assertTrue(stats.corrected().percentileNanos(99) >= stats.uncorrected().percentileNanos(99));
+    }
+
+    @Test
+    @Timeout(TEST_TIMEOUT_SECONDS)
+    void testWebSocketRunReceivesPushedMessages() throws Exception {
+        final LoadStats stats = LoadGenerator.run(LoadOptions.parse("mode=ws", "clients=2", "rate=200",
+                "duration=1", "size=64", "port=8094"));
+
+        assertTrue(stats.completed() > 0);
+        assertEquals(0, stats.errors());
+    }
+}
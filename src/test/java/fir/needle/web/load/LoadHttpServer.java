@@ -0,0 +1,146 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContentCompressor;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerKeepAliveHandler;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import io.netty.util.ReferenceCountUtil;
+
+/*
+ * Local HTTP/1.1 server for load runs: keeps connections alive, answers every request with the same body, either
+ * with a content length or split into chunks, and gzips it when the request accepts gzip.
+ */
+final class LoadHttpServer implements AutoCloseable {
+    static final String PATH = "/load";
+
+    private static final String BODY_PATTERN = "{\"id\":12345,\"name\":\"fir-needle\",\"ok\":true}\n";
+
+    private final EventLoopGroup group = new NioEventLoopGroup();
+    private final Channel serverChannel;
+
+    LoadHttpServer(final int port, final int bodySize, final int chunks) throws InterruptedException {
+        final ResponseHandler responseHandler = new ResponseHandler(body(bodySize), chunks);
+
+        this.serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new HttpServerKeepAliveHandler());
+                        ch.pipeline().addLast(new HttpContentCompressor());
+                        ch.pipeline().addLast(responseHandler);
+                    }
+                })
+                .bind(port).sync().channel();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    // the body is never released, every response writes a view of it
+    private static ByteBuf body(final int size) {
+        final ByteBuf body = Unpooled.directBuffer(size);
+        final byte[] pattern = BODY_PATTERN.getBytes(CharsetUtil.US_ASCII);
+
+        while (body.isWritable()) {
+            body.writeBytes(pattern, 0, Math.min(pattern.length, body.writableBytes()));
+        }
+
+        return Unpooled.unreleasableBuffer(body);
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ResponseHandler extends ChannelInboundHandlerAdapter {
+        private final ByteBuf body;
+        private final int chunks;
+
+        private ResponseHandler(final ByteBuf body, final int chunks) {
+            this.body = body;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+            ReferenceCountUtil.release(msg);
+
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+
+            if (chunks == 1) {
+                final FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+                        HttpResponseStatus.OK, body.duplicate());
+                HttpUtil.setContentLength(response, body.readableBytes());
+                ctx.writeAndFlush(response);
+                return;
+            }
+
+            final HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            HttpUtil.setTransferEncodingChunked(response, true);
+            ctx.write(response);
+
+            final int size = body.readableBytes();
+            final int chunkSize = Math.max(1, (size + chunks - 1) / chunks);
+
+            for (int offset = 0; offset < size; offset += chunkSize) {
+                ctx.write(new DefaultHttpContent(body.slice(offset, Math.min(chunkSize, size - offset))));
+            }
+
+            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+    }
+}
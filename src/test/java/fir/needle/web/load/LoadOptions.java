@@ -0,0 +1,93 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/* Load run settings, given on the command line as key=value pairs, e.g. mode=ws clients=8 rate=20000 */
+final class LoadOptions {
+    static final String HTTP = "http";
+    static final String WEBSOCKET = "ws";
+
+    private static final String DEFAULT_MODE = HTTP;
+    private static final int DEFAULT_CLIENTS = 4;
+    private static final int DEFAULT_RATE = 1000;
+    private static final int DEFAULT_DURATION_SECONDS = 10;
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int DEFAULT_CHUNKS = 1;
+    private static final int DEFAULT_PORT = 8090;
+
+    // http or ws
+    final String mode;
+    final int clients;
+    // operations per second over all clients: requests for http, pushed messages for ws
+    final int rate;
+    final int durationSeconds;
+    // response body size for http, message size for ws
+    final int size;
+    // number of chunks the http response body is split into, 1 sends it with a content length
+    final int chunks;
+    final boolean gzip;
+    final int port;
+
+    private LoadOptions(final Map<String, String> values) {
+        this.mode = values.getOrDefault("mode", DEFAULT_MODE);
+        this.clients = intValue(values, "clients", DEFAULT_CLIENTS);
+        this.rate = intValue(values, "rate", DEFAULT_RATE);
+        this.durationSeconds = intValue(values, "duration", DEFAULT_DURATION_SECONDS);
+        this.size = intValue(values, "size", DEFAULT_SIZE);
+        this.chunks = intValue(values, "chunks", DEFAULT_CHUNKS);
+        this.gzip = Boolean.parseBoolean(values.getOrDefault("gzip", "false"));
+        this.port = intValue(values, "port", DEFAULT_PORT);
+
+        if (!HTTP.equals(mode) && !WEBSOCKET.equals(mode)) {
+            throw new IllegalArgumentException("Unknown mode " + mode + ", expected " + HTTP + " or " + WEBSOCKET);
+        }
+
+        if (clients < 1 || rate < clients || durationSeconds < 1 || chunks < 1) {
+            throw new IllegalArgumentException("clients, duration and chunks must be positive and rate >= clients");
+        }
+    }
+
+    static LoadOptions parse(final String... args) {
+        final Map<String, String> values = new HashMap<>();
+
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        return new LoadOptions(values);
+    }
+
+    private static int intValue(final Map<String, String> values, final String key, final int defaultValue) {
+        final String value = values.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import fir.needle.web.http.client.netty.LatencyHistogram;
+
+/*
+ * Results of one load run. The corrected histogram measures from the intended start of an operation, the
+ * uncorrected one from the moment it was actually sent, the gap between the two is time spent queued.
+ */
+final class LoadStats {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+    private final LatencyHistogram corrected = new LatencyHistogram();
+    private final LatencyHistogram uncorrected = new LatencyHistogram();
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile long startNanos;
+    private volatile long elapsedNanos;
+
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    void stop() {
+        elapsedNanos = System.nanoTime() - startNanos;
+    }
+
+    void record(final long intendedNanos, final long sentNanos, final long finishedNanos) {
+        corrected.record(finishedNanos - intendedNanos);
+        uncorrected.record(finishedNanos - sentNanos);
+    }
+
+    void recordError() {
+        errors.incrementAndGet();
+    }
+
+    long completed() {
+        return corrected.count();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    LatencyHistogram corrected() {
+        return corrected;
+    }
+
+    LatencyHistogram uncorrected() {
+        return uncorrected;
+    }
+
+    double throughput() {
+        return elapsedNanos == 0 ? 0 : completed() * NANOS_PER_SECOND / elapsedNanos;
+    }
+
+    String report(final String name) {
+        return String.format("%s: %d completed, %d errors in %.2f s, %.1f ops/s%n%s%n%s", name, completed(),
+                errors(), elapsedNanos / NANOS_PER_SECOND, throughput(),
+                percentiles("  corrected  ", corrected), percentiles("  uncorrected", uncorrected));
+    }
+
+    private static String percentiles(final String name, final LatencyHistogram histogram) {
+        return String.format("%s p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", name,
+                histogram.percentileNanos(50) / NANOS_PER_MICRO, histogram.percentileNanos(99) / NANOS_PER_MICRO,
+                histogram.percentileNanos(99.9) / NANOS_PER_MICRO, histogram.maxNanos() / NANOS_PER_MICRO);
+    }
+}
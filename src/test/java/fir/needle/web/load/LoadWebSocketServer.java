@@ -0,0 +1,131 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/*
+ * Local WebSocket server for load runs: after the handshake it pushes binary messages of a fixed size at a fixed
+ * rate on every connection. Each message starts with its intended and its actual send time, so the receiver can
+ * measure latency from the intended time even when this server or the client fell behind.
+ */
+final class LoadWebSocketServer implements AutoCloseable {
+    static final String PATH = "/load";
+    static final int TIMESTAMPS_SIZE = 2 * Long.BYTES;
+
+    private static final int MAX_HANDSHAKE_SIZE = 8192;
+
+    private final EventLoopGroup group = new NioEventLoopGroup();
+    private final Channel serverChannel;
+
+    LoadWebSocketServer(final int port, final int messagesPerSecond, final int messageSize)
+            throws InterruptedException {
+        if (messageSize < TIMESTAMPS_SIZE) {
+            throw new IllegalArgumentException("Message size must be at least " + TIMESTAMPS_SIZE + " bytes");
+        }
+
+        this.serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpServerCodec());
+                        ch.pipeline().addLast(new HttpObjectAggregator(MAX_HANDSHAKE_SIZE));
+                        ch.pipeline().addLast(new WebSocketServerProtocolHandler(PATH));
+                        ch.pipeline().addLast(new Pusher(messagesPerSecond, messageSize));
+                    }
+                })
+                .bind(port).sync().channel();
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).sync();
+    }
+
+    private static final class Pusher extends ChannelInboundHandlerAdapter {
+        private final int messagesPerSecond;
+        private final int messageSize;
+
+        private ArrivalSchedule schedule;
+        private ScheduledFuture<?> pushTask;
+        private long sent;
+
+        private Pusher(final int messagesPerSecond, final int messageSize) {
+            this.messagesPerSecond = messagesPerSecond;
+            this.messageSize = messageSize;
+        }
+
+        @Override
+        public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) throws Exception {
+            if (!(evt instanceof WebSocketServerProtocolHandler.HandshakeComplete)) {
+                super.userEventTriggered(ctx, evt);
+                return;
+            }
+
+            // a fixed rate task that fell behind runs back to back until it caught up with its schedule
+            schedule = new ArrivalSchedule(System.nanoTime(), messagesPerSecond);
+            pushTask = ctx.executor().scheduleAtFixedRate(() -> push(ctx), 0, schedule.intervalNanos(),
+                    TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+            if (pushTask != null) {
+                pushTask.cancel(false);
+            }
+
+            super.channelInactive(ctx);
+        }
+
+        private void push(final ChannelHandlerContext ctx) {
+            final ByteBuf message = ctx.alloc().buffer(messageSize);
+            message.writeLong(schedule.intendedNanos(sent++));
+            message.writeLong(System.nanoTime());
+            message.writeZero(messageSize - TIMESTAMPS_SIZE);
+
+            ctx.writeAndFlush(new BinaryWebSocketFrame(message));
+        }
+    }
+}
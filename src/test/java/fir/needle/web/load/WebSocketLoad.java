@@ -0,0 +1,117 @@
+/**
+ * MIT License
+ * <p>
+ * Copyright (c) 2019 Nikita Vasilev
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE  LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package fir.needle.web.load;
+
+import java.util.concurrent.TimeUnit;
+
+import fir.needle.joint.io.ByteArea;
+import fir.needle.web.NettyWebClient;
+import fir.needle.web.SilentTestLogger;
+import fir.needle.web.websocket.client.AbstractWebSocketClientException;
+import fir.needle.web.websocket.client.SingleConnectSingleDisconnectAdapter;
+import fir.needle.web.websocket.client.WebSocket;
+import fir.needle.web.websocket.client.netty.NettyWebSocketClient;
+
+/*
+ * Opens one connection per client to a LoadWebSocketServer and receives what it pushes for the configured
+ * duration. The arrival rate is set on the server, the client side only timestamps the messages.
+ */
+final class WebSocketLoad {
+    private WebSocketLoad() {
+    }
+
+    static LoadStats run(final LoadOptions options, final String host, final int port) throws Exception {
+        final LoadStats stats = new LoadStats();
+
+        try (NettyWebClient webClient = new NettyWebClient()) {
+            final AutoCloseable[] connections = new AutoCloseable[options.clients];
+
+            stats.start();
+
+            for (int i = 0; i < connections.length; i++) {
+                final NettyWebSocketClient client = webClient.webSocketBuilder()
+                        .withLogger(new SilentTestLogger())
+                        .build(host, port);
+
+                connections[i] = client.openConnection(LoadWebSocketServer.PATH, new Receiver(stats));
+            }
+
+            Thread.sleep(TimeUnit.SECONDS.toMillis(options.durationSeconds));
+            stats.stop();
+
+            for (final AutoCloseable connection : connections) {
+                connection.close();
+            }
+        }
+
+        return stats;
+    }
+
+    // per connection rate the server has to push at so that all connections together reach the requested rate
+    static int messagesPerConnection(final LoadOptions options) {
+        return options.rate / options.clients;
+    }
+
+    private static final class Receiver extends SingleConnectSingleDisconnectAdapter {
+        private final LoadStats stats;
+
+        private boolean isMessageStart = true;
+        private long intendedNanos;
+        private long sentNanos;
+
+        private Receiver(final LoadStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void onBinaryFrame(final ByteArea message, final long startIndex, final long length,
+                final boolean isFinalFragment) {
+            if (isMessageStart) {
+                intendedNanos = readLong(message, startIndex);
+                sentNanos = readLong(message, startIndex + Long.BYTES);
+            }
+
+            isMessageStart = isFinalFragment;
+
+            if (isFinalFragment) {
+                stats.record(intendedNanos, sentNanos, System.nanoTime());
+            }
+        }
+
+        @Override
+        protected void onCloseByError(final WebSocket webSocket, final AbstractWebSocketClientException error) {
+            stats.recordError();
+        }
+
+        private static long readLong(final ByteArea message, final long index) {
+            long value = 0;
+
+            for (int i = 0; i < Long.BYTES; i++) {
+                value = value << Byte.SIZE | message.getByte(index + i) & 0xFF;
+            }
+
+            return value;
+        }
+    }
+}